@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.benchmark;
+
+import com.bitwig.extension.controller.api.ControllerHost;
+import com.github.jhorology.bitwig.Config;
+import com.github.jhorology.bitwig.WebSocketRpcServerExtension;
+import com.github.jhorology.bitwig.WebSocketRpcServerExtensionDefinition;
+import com.github.jhorology.bitwig.extension.ControlSurfaceSessionExecutor;
+import com.github.jhorology.bitwig.extension.ExtensionUtils;
+import com.github.jhorology.bitwig.extension.InitEvent;
+import com.github.jhorology.bitwig.logging.impl.LogSeverity;
+import com.github.jhorology.bitwig.logging.impl.ScriptConsoleLogger;
+import com.github.jhorology.bitwig.reflect.ReflectionRegistry;
+import com.github.jhorology.bitwig.websocket.protocol.AbstractProtocolHandler;
+import com.github.jhorology.bitwig.websocket.protocol.Protocols;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The extension modules that are wired without Bitwig Studio and network.
+ * <pre>
+ * - ControllerHost and all objects created from it are {@link Stubs}.
+ * - messages are dispatched to protocol handler without WebSocket server,
+ *   responses are sent to {@link NullWebSocket}.
+ * - messages are decoded and dispatched in same way as WebSocketRpcServer,
+ *   decode() then handleDecoded(), and followed by a flush of host.
+ * </pre>
+ * The thread that calls {@link #start(String)} is treated as 'Control Surface Session' thread,
+ * requests must be called from same thread.
+ */
+public class InMemoryServer {
+
+  private final ControllerHost host;
+  private final WebSocketRpcServerExtension extension;
+  private final ControlSurfaceSessionExecutor executor;
+  private final AbstractProtocolHandler protocol;
+  private final ReflectionRegistry registry;
+  private final NullWebSocket conn;
+
+  private InMemoryServer(String configJson) {
+    host = Stubs.create(ControllerHost.class);
+    ScriptConsoleLogger.setControllerHost(host);
+    ScriptConsoleLogger.setGlobalLogLevel(LogSeverity.ERROR);
+    WebSocketRpcServerExtensionDefinition definition = new WebSocketRpcServerExtensionDefinition();
+    extension =
+      (WebSocketRpcServerExtension) definition.createInstance(host);
+    Config config = extension.getConfig();
+    ExtensionUtils.populateJsonProperties(
+      new StringReader(configJson),
+      config
+    );
+    executor = new ControlSurfaceSessionExecutor(true);
+    protocol =
+      (AbstractProtocolHandler) Protocols.newProtocolHandler(
+        config.getRpcProtocol()
+      );
+    registry = new ReflectionRegistry(config, protocol);
+    conn = new NullWebSocket();
+  }
+
+  /**
+   * Start a new in-memory server.
+   * @param configJson the JSON of configuration values. e.g.) {"useTransport":true}
+   * @return
+   */
+  public static InMemoryServer start(String configJson) {
+    InMemoryServer server = new InMemoryServer(configJson);
+    InitEvent<Config> e = server.extension.newInitEvent();
+    // same order as AbstractExtension#init()
+    server.executor.onInit(e);
+    server.registry.onInit(e);
+    // same as WebSocketRpcServer#onStart(), protocol handler is started
+    // within executor task to see the configuration.
+    server.executor.execute(() -> server.protocol.handleStart(null));
+    return server;
+  }
+
+  /**
+   * Stop this server.
+   */
+  public void stop() {
+    registry.onExit(extension.newExitEvent());
+    // wait for encoder thread if async serialization is enabled.
+    executor.execute(protocol::handleStop);
+    protocol.onStop();
+  }
+
+  /**
+   * Returns a task that process a text message from the client connection.
+   * @param message
+   * @return
+   */
+  public Runnable newRequest(String message) {
+    return () -> {
+      // decoding is done on WebSocket worker thread in real server.
+      Object decoded = protocol.decode(conn, message);
+      if (decoded != null) {
+        protocol.handleDecoded(conn, decoded);
+      } else {
+        protocol.handleMessage(conn, message);
+      }
+      protocol.handleFlush();
+    };
+  }
+
+  /**
+   * Returns a task that process a binary message from the client connection.
+   * The message is sent as UTF-8 encoded JSON.
+   * @param message
+   * @return
+   */
+  public Runnable newBinaryRequest(String message) {
+    return newBinaryRequest(
+      ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8))
+    );
+  }
+
+  /**
+   * Returns a task that process a binary message from the client connection.
+   * The message is sent as is, e.g.) MessagePack.
+   * @param bytes
+   * @return
+   */
+  public Runnable newBinaryRequest(ByteBuffer bytes) {
+    return () -> {
+      // each task reads the frame from beginning.
+      Object decoded = protocol.decode(conn, bytes.duplicate());
+      if (decoded != null) {
+        protocol.handleDecoded(conn, decoded);
+      } else {
+        protocol.handleMessage(conn, bytes.duplicate());
+      }
+      protocol.handleFlush();
+    };
+  }
+
+  /**
+   * Wait until the number of sent messages reaches the specified count.<br>
+   * Responses are sent from encoder thread if async serialization is enabled,
+   * this method is used for bounding the backlog of encoder thread.
+   * @param count
+   * @return the number of sent messages.
+   */
+  public long awaitSentMessages(long count) {
+    long sent = conn.getSentMessages();
+    while (sent < count) {
+      Thread.onSpinWait();
+      sent = conn.getSentMessages();
+    }
+    return sent;
+  }
+
+  /**
+   * Run a task on 'Control Surface Session' thread.
+   * @param task
+   */
+  public void execute(Runnable task) {
+    executor.execute(task);
+  }
+
+  /**
+   * Returns the stub of ControllerHost.
+   * @return
+   */
+  public ControllerHost getHost() {
+    return host;
+  }
+
+  /**
+   * Returns the RPC registry.
+   * @return
+   */
+  public ReflectionRegistry getRegistry() {
+    return registry;
+  }
+
+  /**
+   * Returns the protocol handler.
+   * @return
+   */
+  public AbstractProtocolHandler getProtocol() {
+    return protocol;
+  }
+
+  /**
+   * Returns the client connection.
+   * @return
+   */
+  public NullWebSocket getConnection() {
+    return conn;
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for JSON-RPC request path.
+ * <pre>
+ * JsonRpcProtocolHandler#decode
+ *   -> RequestDecoder
+ * JsonRpcProtocolHandler#handleDecoded
+ *   -> ReflectionRegistry#getRpcMethod
+ *   -> MethodHolder#invoke
+ *   -> response serialization
+ * </pre>
+ * Run with '-prof gc' to get allocation rate per operation.
+ * Stubs adds a constant overhead to the methods that call Bitwig API.
+ * Each benchmark is run with the options of outbound path,
+ * e.g.) -p option=asyncSerialization
+ * <pre>
+ * - none                 serialize and send on calling thread.
+ * - asyncSerialization   serialize and send on encoder thread, the backlog
+ *                        is bounded to {@value #MAX_IN_FLIGHT} messages.
+ * - notificationBatching batch notifications per flush.
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonRpcRequestBenchmark {
+
+  private static final String CONFIG =
+    "{\"useTransport\":true,\"useMainTrackBank\":true%s}";
+
+  private static final int BATCH_SIZE = 8;
+
+  private static final int MAX_IN_FLIGHT = 64;
+
+  @Param({ "none", "asyncSerialization", "notificationBatching" })
+  public String option;
+
+  private InMemoryServer server;
+  private Runnable noParams;
+  private Runnable varargs;
+  private Runnable deepChainNotify;
+  private Runnable deepChainBatch;
+  private Runnable methodNotFound;
+  private Runnable noParamsBinary;
+  private Runnable deepChainBatchBinary;
+  // the number of messages that should be sent.
+  private long expected;
+
+  @Setup
+  public void setup() {
+    // JMH calls setup of Scope.Thread state from benchmark thread.
+    server =
+      InMemoryServer.start(
+        String.format(
+          CONFIG,
+          "none".equals(option) ? "" : ",\"" + option + "\":true"
+        )
+      );
+    String noParamsRequest =
+      "{\"jsonrpc\":\"2.0\",\"method\":\"transport.play\",\"id\":1}";
+    noParams = server.newRequest(noParamsRequest);
+    noParamsBinary = server.newBinaryRequest(noParamsRequest);
+    varargs =
+      server.newRequest(
+        "{\"jsonrpc\":\"2.0\",\"method\":\"test.sum\",\"params\":[1,2,3,4],\"id\":2}"
+      );
+    deepChainNotify = server.newRequest(deepChainRequest(2, 1, 0.5, null));
+    StringBuilder batch = new StringBuilder("[");
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      if (i > 0) {
+        batch.append(',');
+      }
+      batch.append(deepChainRequest(i, i % 2, i / (double) BATCH_SIZE, i));
+    }
+    batch.append(']');
+    deepChainBatch = server.newRequest(batch.toString());
+    deepChainBatchBinary = server.newBinaryRequest(batch.toString());
+    methodNotFound =
+      server.newRequest(
+        "{\"jsonrpc\":\"2.0\",\"method\":\"transport.noSuchMethod\",\"id\":3}"
+      );
+  }
+
+  @TearDown
+  public void tearDown() {
+    server.stop();
+  }
+
+  /**
+   * depth 1 call without parameters.
+   * @return
+   */
+  @Benchmark
+  public long singleNoParams() {
+    return run(noParams, 1);
+  }
+
+  /**
+   * varargs call. lookup falls back to the varargs signature.
+   * @return
+   */
+  @Benchmark
+  public long singleVarargs() {
+    return run(varargs, 1);
+  }
+
+  /**
+   * depth 5 notification, fader move of a send.
+   * @return
+   */
+  @Benchmark
+  public long singleDeepChainNotify() {
+    return run(deepChainNotify, 0);
+  }
+
+  /**
+   * batch of depth 5 calls.
+   * @return
+   */
+  @Benchmark
+  public long batchDeepChain() {
+    return run(deepChainBatch, 1);
+  }
+
+  /**
+   * error path.
+   * @return
+   */
+  @Benchmark
+  public long singleMethodNotFound() {
+    return run(methodNotFound, 1);
+  }
+
+  /**
+   * depth 1 call without parameters, sent as a binary message.
+   * @return
+   */
+  @Benchmark
+  public long singleNoParamsBinary() {
+    return run(noParamsBinary, 1);
+  }
+
+  /**
+   * batch of depth 5 calls, sent as a binary message.
+   * @return
+   */
+  @Benchmark
+  public long batchDeepChainBinary() {
+    return run(deepChainBatchBinary, 1);
+  }
+
+  private long run(Runnable task, int responses) {
+    server.execute(task);
+    expected += responses;
+    return server.awaitSentMessages(expected - MAX_IN_FLIGHT);
+  }
+
+  private static String deepChainRequest(
+    int track,
+    int send,
+    double value,
+    Integer id
+  ) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("{\"jsonrpc\":\"2.0\"");
+    sb.append(
+      ",\"method\":\"mainTrackBank.getItemAt.sendBank.getItemAt.value.setImmediately\""
+    );
+    sb.append(",\"params\":[");
+    sb.append(track).append(',').append(send).append(',').append(value);
+    sb.append(']');
+    if (id != null) {
+      sb.append(",\"id\":").append(id);
+    }
+    sb.append('}');
+    return sb.toString();
+  }
+}
@@ -0,0 +1,397 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.benchmark;
+
+import com.github.jhorology.bitwig.rpc.test.IntPair;
+import com.github.jhorology.bitwig.websocket.protocol.NotificationTemplate;
+import com.github.jhorology.bitwig.websocket.protocol.PushModel;
+import com.github.jhorology.bitwig.websocket.protocol.msgpack.MessagePackReader;
+import com.github.jhorology.bitwig.websocket.protocol.msgpack.MessagePackWriter;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A smoke run of MessagePack encoding, it doesn't need JMH.
+ * <pre>
+ * - MessagePackWriter to MessagePackReader round trip of each format.
+ * - requests decoded by RequestDecoder and their responses.
+ * - notifications filled in the templates, also on encoder thread.
+ * </pre>
+ * Run from the benchmark directory after packaging, throws AssertionError
+ * if any of values is not same after round trip.
+ * <pre>
+ * java -cp target/benchmarks.jar com.github.jhorology.bitwig.benchmark.MessagePackRoundTrip
+ * </pre>
+ */
+public class MessagePackRoundTrip {
+
+  private static final String CONFIG =
+    "{\"rpcProtocol\":\"JSONRPC20_MSGPACK\"%s}";
+
+  private static final long[] LONGS = {
+    0L,
+    1L,
+    127L,
+    128L,
+    255L,
+    256L,
+    65535L,
+    65536L,
+    0xffffffffL,
+    0x100000000L,
+    Long.MAX_VALUE,
+    -1L,
+    -32L,
+    -33L,
+    -128L,
+    -129L,
+    -32768L,
+    -32769L,
+    Integer.MIN_VALUE,
+    Integer.MIN_VALUE - 1L,
+    Long.MIN_VALUE,
+  };
+
+  private static final double[] DOUBLES = {
+    0d,
+    -0.5d,
+    1.5d,
+    1e-300d,
+    Double.MAX_VALUE,
+    Double.MIN_VALUE,
+    Double.NaN,
+    Double.NEGATIVE_INFINITY,
+  };
+
+  // fixstr, str8, str16 and str32
+  private static final int[] STRING_LENGTHS = {
+    0,
+    31,
+    32,
+    255,
+    256,
+    65535,
+    65536,
+  };
+
+  // fixarray/fixmap, 16 and 32
+  private static final int[] CONTAINER_SIZES = { 0, 15, 16, 65535, 65536 };
+
+  public static void main(String[] args) throws IOException {
+    roundTripScalars();
+    roundTripContainers();
+    roundTripJsonTree();
+    roundTripServer("");
+    roundTripServer(",\"asyncSerialization\":true");
+    System.out.println("MessagePack round trip: OK");
+  }
+
+  private static void roundTripScalars() throws IOException {
+    MessagePackWriter writer = new MessagePackWriter();
+    for (long value : LONGS) {
+      writer.reset().writeLong(value);
+      check(value, reader(writer).nextLong(), "long");
+      if (value == (int) value) {
+        check((int) value, reader(writer).nextInt(), "int");
+      }
+    }
+    for (double value : DOUBLES) {
+      writer.reset().writeDouble(value);
+      check(value, reader(writer).nextDouble(), "float64");
+    }
+    for (int length : STRING_LENGTHS) {
+      char[] chars = new char[length];
+      Arrays.fill(chars, 'a');
+      String value = new String(chars);
+      writer.reset().writeString(value);
+      check(value, reader(writer).nextString(), "str");
+    }
+    // multi-byte characters and a surrogate pair.
+    String value = "\u65e5\u672c\u8a9e \ud83c\udfb9";
+    writer.reset().writeString(value);
+    check(value, reader(writer).nextString(), "utf-8");
+    writer.reset().writeBoolean(true);
+    check(true, reader(writer).nextBoolean(), "true");
+    writer.reset().writeBoolean(false);
+    check(false, reader(writer).nextBoolean(), "false");
+    writer.reset().writeNil();
+    check(JsonToken.NULL, reader(writer).peek(), "nil");
+    // numbers of JSON tree those are not a primitive type.
+    writer.reset().write(new JsonPrimitive(new BigDecimal("42")));
+    check(42L, reader(writer).nextLong(), "integral BigDecimal");
+    writer.reset().write(new JsonPrimitive(new BigDecimal("1.5")));
+    check(1.5d, reader(writer).nextDouble(), "BigDecimal");
+    writer.reset().write(new JsonPrimitive(BigInteger.ONE.shiftLeft(64)));
+    check(0x1p64, reader(writer).nextDouble(), "BigInteger");
+  }
+
+  private static void roundTripContainers() throws IOException {
+    MessagePackWriter writer = new MessagePackWriter();
+    for (int size : CONTAINER_SIZES) {
+      writer.reset().writeArrayHeader(size);
+      for (int i = 0; i < size; i++) {
+        writer.writeLong(i);
+      }
+      MessagePackReader reader = reader(writer);
+      reader.beginArray();
+      int count = 0;
+      while (reader.hasNext()) {
+        check((long) count++, reader.nextLong(), "array element");
+      }
+      reader.endArray();
+      check(size, count, "array size");
+      check(JsonToken.END_DOCUMENT, reader.peek(), "end of array");
+
+      writer.reset().writeMapHeader(size);
+      for (int i = 0; i < size; i++) {
+        writer.writeString("k" + i).writeLong(i);
+      }
+      reader = reader(writer);
+      reader.beginObject();
+      count = 0;
+      while (reader.hasNext()) {
+        check("k" + count, reader.nextName(), "map key");
+        check((long) count++, reader.nextLong(), "map value");
+      }
+      reader.endObject();
+      check(size, count, "map size");
+      check(JsonToken.END_DOCUMENT, reader.peek(), "end of map");
+    }
+  }
+
+  private static void roundTripJsonTree() {
+    JsonElement json = JsonParser.parseString(
+      "{\"jsonrpc\":\"2.0\",\"result\":{\"name\":\"Track 1\",\"volume\":0.75," +
+      "\"muted\":false,\"color\":null,\"sends\":[0,-1,300,70000,5e9,1.0]," +
+      "\"nested\":[[],{},[{\"a\":[true]}]]},\"id\":\"\\u00e9\"}"
+    );
+    check(json, read(new MessagePackWriter().write(json)), "JSON tree");
+  }
+
+  /**
+   * Round trip of requests and notifications through the protocol handler.
+   * The request objects are encoded from JSON tree, so that numbers are
+   * encoded in same way as clients, e.g.) 2.5 as float64.
+   */
+  private static void roundTripServer(String options) {
+    InMemoryServer server = InMemoryServer.start(
+      String.format(CONFIG, options)
+    );
+    try {
+      // primitive, varargs and object parameters.
+      request(server, "test.sum", "[1,2]", "3");
+      request(server, "test.sum", "[1,2,3,4,5]", "15");
+      request(server, "test.sum", "[70000,-70000]", "0");
+      request(server, "test.sum", "[2.5,1]", "3");
+      request(server, "test.sum", "[{\"left\":2,\"right\":5}]", "7");
+      request(server, "test.concat", "[\"a\",\"\\u00e9\"]", "\"a\\u00e9\"");
+      request(server, "test.repeat", "[\"ab\",3]", "\"ababab\"");
+      request(
+        server,
+        "test.repeat",
+        "[{\"left\":\"x\",\"right\":2}]",
+        "\"xx\""
+      );
+      // batch request
+      expect(
+        server,
+        server.newBinaryRequest(
+          encode(
+            "[" +
+            requestJson("test.sum", "[1,1]", 1) +
+            "," +
+            requestJson("test.concat", "[\"b\",\"c\"]", 2) +
+            "]"
+          )
+        ),
+        "[" +
+        responseJson("2", 1) +
+        "," +
+        responseJson("\"bc\"", 2) +
+        "]"
+      );
+      // error
+      JsonObject error = send(
+        server,
+        server.newBinaryRequest(
+          encode(requestJson("test.noSuchMethod", "[]", 3))
+        )
+      )
+        .getAsJsonObject();
+      check(
+        new JsonPrimitive(-32601),
+        error.getAsJsonObject("error").get("code"),
+        "error code"
+      );
+      check(new JsonPrimitive(3), error.get("id"), "error id");
+      // notification templates
+      PushModel pushModel = (PushModel) server.getProtocol();
+      NotificationTemplate leading = pushModel.newNotificationTemplate(
+        "mainTrackBank.getItemAt.volume.value",
+        new Object[] { 3 }
+      );
+      notify(
+        server,
+        leading,
+        new Object[] { 0.5d },
+        "{\"notification\":\"mainTrackBank.getItemAt.volume.value\",\"params\":[3,0.5]}"
+      );
+      NotificationTemplate flatten = pushModel.newNotificationTemplate(
+        "test.pair",
+        new Object[0]
+      );
+      notify(
+        server,
+        flatten,
+        new Object[] { new IntPair(1, 2) },
+        "{\"notification\":\"test.pair\",\"params\":{\"left\":1,\"right\":2}}"
+      );
+      NotificationTemplate delta = pushModel
+        .newNotificationTemplate("test.deltas", new Object[0])
+        .markDelta();
+      notify(
+        server,
+        delta,
+        new Object[] {
+          "s",
+          Integer.MIN_VALUE,
+          Long.MAX_VALUE,
+          null,
+          true,
+          new IntPair(3, 4),
+        },
+        "{\"notification\":\"test.deltas\",\"params\":[\"s\",-2147483648," +
+        "9223372036854775807,null,true,{\"left\":3,\"right\":4}]}"
+      );
+    } finally {
+      server.stop();
+    }
+  }
+
+  private static void request(
+    InMemoryServer server,
+    String method,
+    String params,
+    String result
+  ) {
+    expect(
+      server,
+      server.newBinaryRequest(encode(requestJson(method, params, 1))),
+      responseJson(result, 1)
+    );
+  }
+
+  private static void notify(
+    InMemoryServer server,
+    NotificationTemplate template,
+    Object[] params,
+    String expected
+  ) {
+    PushModel pushModel = (PushModel) server.getProtocol();
+    NullWebSocket conn = server.getConnection();
+    expect(server, () -> pushModel.push(template, params, conn), expected);
+  }
+
+  private static void expect(
+    InMemoryServer server,
+    Runnable task,
+    String expected
+  ) {
+    check(JsonParser.parseString(expected), send(server, task), expected);
+  }
+
+  /**
+   * Run the task and read the message sent to the client.
+   */
+  private static JsonElement send(InMemoryServer server, Runnable task) {
+    NullWebSocket conn = server.getConnection();
+    long sent = conn.getSentMessages();
+    server.execute(task);
+    server.awaitSentMessages(sent + 1);
+    return read(conn.getLastBinaryMessage());
+  }
+
+  private static String requestJson(String method, String params, int id) {
+    return (
+      "{\"jsonrpc\":\"2.0\",\"method\":\"" +
+      method +
+      "\",\"params\":" +
+      params +
+      ",\"id\":" +
+      id +
+      "}"
+    );
+  }
+
+  private static String responseJson(String result, int id) {
+    return (
+      "{\"jsonrpc\":\"2.0\",\"result\":" + result + ",\"id\":" + id + "}"
+    );
+  }
+
+  private static ByteBuffer encode(String json) {
+    return new MessagePackWriter()
+      .write(JsonParser.parseString(json))
+      .toByteBuffer();
+  }
+
+  private static JsonElement read(MessagePackWriter writer) {
+    return read(writer.toByteBuffer());
+  }
+
+  private static JsonElement read(ByteBuffer message) {
+    MessagePackReader reader = new MessagePackReader(message);
+    JsonElement json = JsonParser.parseReader(reader);
+    check(JsonToken.END_DOCUMENT, peek(reader), "end of message");
+    return json;
+  }
+
+  private static JsonToken peek(MessagePackReader reader) {
+    try {
+      return reader.peek();
+    } catch (IOException ex) {
+      throw new AssertionError(ex);
+    }
+  }
+
+  private static MessagePackReader reader(MessagePackWriter writer) {
+    return new MessagePackReader(writer.toByteBuffer());
+  }
+
+  private static void check(Object expected, Object actual, String what) {
+    if (!Objects.equals(expected, actual)) {
+      throw new AssertionError(
+        what + ": expected <" + expected + "> but was <" + actual + ">"
+      );
+    }
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.benchmark;
+
+import com.bitwig.extension.controller.api.ControllerHost;
+import com.bitwig.extension.controller.api.TrackBank;
+import com.bitwig.extension.controller.api.Transport;
+import com.github.jhorology.bitwig.rpc.RpcMethod;
+import com.github.jhorology.bitwig.rpc.RpcParamType;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for invoking method chain of depth 1 to 5.
+ * <pre>
+ * compiled   : RpcMethod#invoke of the registry
+ * reflective : java.lang.reflect.Method#invoke with slicing parameters (baseline)
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MethodChainBenchmark {
+
+  private static final String CONFIG =
+    "{\"useTransport\":true,\"useMainTrackBank\":true}";
+
+  /**
+   * Method chains for each depth.
+   */
+  public enum Chain {
+    DEPTH1(Transport.class, h -> h.createTransport(), "play(0)"),
+    DEPTH2(Transport.class, h -> h.createTransport(), "isPlaying(0).toggle(0)"),
+    DEPTH3(
+      TrackBank.class,
+      h -> h.createMainTrackBank(8, 2, 8),
+      "getItemAt(1).volume(0).reset(0)",
+      2
+    ),
+    DEPTH4(
+      TrackBank.class,
+      h -> h.createMainTrackBank(8, 2, 8),
+      "getItemAt(1).volume(0).value(0).setImmediately(1)",
+      2,
+      0.5
+    ),
+    DEPTH5(
+      TrackBank.class,
+      h -> h.createMainTrackBank(8, 2, 8),
+      "getItemAt(1).sendBank(0).getItemAt(1).value(0).setImmediately(1)",
+      2,
+      1,
+      0.5
+    );
+
+    private final Class<?> moduleType;
+    private final Function<ControllerHost, Object> moduleFactory;
+    private final String chain;
+    private final Object[] params;
+
+    private Chain(
+      Class<?> moduleType,
+      Function<ControllerHost, Object> moduleFactory,
+      String chain,
+      Object... params
+    ) {
+      this.moduleType = moduleType;
+      this.moduleFactory = moduleFactory;
+      this.chain = chain;
+      this.params = params;
+    }
+
+    private String rpcMethodName() {
+      String module = moduleType == Transport.class
+        ? "transport"
+        : "mainTrackBank";
+      return module + "." + chain.replaceAll("\\(\\d+\\)", "");
+    }
+
+    private RpcParamType[] rpcParamTypes() {
+      RpcParamType[] types = new RpcParamType[params.length];
+      for (int i = 0; i < params.length; i++) {
+        types[i] = RpcParamType.NUMBER;
+      }
+      return types;
+    }
+  }
+
+  @Param({ "DEPTH1", "DEPTH2", "DEPTH3", "DEPTH4", "DEPTH5" })
+  private Chain chain;
+
+  private InMemoryServer server;
+  private RpcMethod compiled;
+  private ReflectiveChain reflective;
+  private Object[] params;
+
+  @Setup
+  public void setup() {
+    server = InMemoryServer.start(CONFIG);
+    compiled =
+      server
+        .getRegistry()
+        .getRpcMethod(chain.rpcMethodName(), chain.rpcParamTypes());
+    if (compiled == null) {
+      throw new IllegalStateException(
+        "method not found. " + chain.rpcMethodName()
+      );
+    }
+    reflective =
+      new ReflectiveChain(
+        chain.moduleFactory.apply(server.getHost()),
+        chain.moduleType,
+        chain.chain
+      );
+    params = chain.params;
+  }
+
+  @TearDown
+  public void tearDown() {
+    server.stop();
+  }
+
+  @Benchmark
+  public Object compiled() throws Exception {
+    return compiled.invoke(params);
+  }
+
+  @Benchmark
+  public Object reflective() throws Exception {
+    return reflective.invoke(params);
+  }
+}
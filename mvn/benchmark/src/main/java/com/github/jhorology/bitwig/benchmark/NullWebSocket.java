@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.benchmark;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import javax.net.ssl.SSLSession;
+import org.java_websocket.WebSocket;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.enums.Opcode;
+import org.java_websocket.enums.ReadyState;
+import org.java_websocket.framing.Framedata;
+import org.java_websocket.protocols.IProtocol;
+
+/**
+ * A client connection that discards all outgoing messages.
+ */
+public class NullWebSocket implements WebSocket {
+
+  private static final InetSocketAddress ADDRESS = InetSocketAddress.createUnresolved(
+    "localhost",
+    0
+  );
+
+  // written from encoder thread if async serialization is enabled.
+  private volatile long sentMessages;
+  private volatile long sentBytes;
+  private volatile String lastMessage;
+  private volatile ByteBuffer lastBinaryMessage;
+  private Object attachment;
+
+  /**
+   * Returns a number of messages that has been sent to this connection.
+   * @return
+   */
+  public long getSentMessages() {
+    return sentMessages;
+  }
+
+  /**
+   * Returns a total size of messages that has been sent to this connection.
+   * String messages are counted by characters.
+   * @return
+   */
+  public long getSentBytes() {
+    return sentBytes;
+  }
+
+  /**
+   * Returns a last text message that has been sent to this connection.
+   * @return
+   */
+  public String getLastMessage() {
+    return lastMessage;
+  }
+
+  public ByteBuffer getLastBinaryMessage() {
+    return lastBinaryMessage != null ? lastBinaryMessage.duplicate() : null;
+  }
+
+  @Override
+  public void close(int code, String message) {}
+
+  @Override
+  public void close(int code) {}
+
+  @Override
+  public void close() {}
+
+  @Override
+  public void closeConnection(int code, String message) {}
+
+  @Override
+  public void send(String text) {
+    sentMessages++;
+    sentBytes += text.length();
+    lastMessage = text;
+  }
+
+  @Override
+  public void send(ByteBuffer bytes) {
+    // set before counting, the message is read after awaiting the count.
+    lastBinaryMessage = bytes;
+    sentMessages++;
+    sentBytes += bytes.remaining();
+  }
+
+  @Override
+  public void send(byte[] bytes) {
+    sentMessages++;
+    sentBytes += bytes.length;
+  }
+
+  @Override
+  public void sendFrame(Framedata framedata) {
+    sentMessages++;
+    sentBytes += framedata.getPayloadData().remaining();
+  }
+
+  @Override
+  public void sendFrame(Collection<Framedata> frames) {
+    frames.forEach(this::sendFrame);
+  }
+
+  @Override
+  public void sendPing() {}
+
+  @Override
+  public void sendFragmentedFrame(Opcode op, ByteBuffer buffer, boolean fin) {
+    sentBytes += buffer.remaining();
+    if (fin) {
+      sentMessages++;
+    }
+  }
+
+  @Override
+  public boolean hasBufferedData() {
+    return false;
+  }
+
+  @Override
+  public InetSocketAddress getRemoteSocketAddress() {
+    return ADDRESS;
+  }
+
+  @Override
+  public InetSocketAddress getLocalSocketAddress() {
+    return ADDRESS;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return true;
+  }
+
+  @Override
+  public boolean isClosing() {
+    return false;
+  }
+
+  @Override
+  public boolean isFlushAndClose() {
+    return false;
+  }
+
+  @Override
+  public boolean isClosed() {
+    return false;
+  }
+
+  @Override
+  public Draft getDraft() {
+    return null;
+  }
+
+  @Override
+  public ReadyState getReadyState() {
+    return ReadyState.OPEN;
+  }
+
+  @Override
+  public String getResourceDescriptor() {
+    return "/";
+  }
+
+  @Override
+  public <T> void setAttachment(T attachment) {
+    this.attachment = attachment;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T getAttachment() {
+    return (T) attachment;
+  }
+
+  @Override
+  public boolean hasSSLSupport() {
+    return false;
+  }
+
+  @Override
+  public SSLSession getSSLSession() {
+    return null;
+  }
+
+  @Override
+  public IProtocol getProtocol() {
+    return null;
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.benchmark;
+
+import com.google.common.reflect.TypeToken;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.ArrayUtils;
+
+/**
+ * A method chain that is invoked by java.lang.reflect.Method.<br>
+ * This is a baseline for comparison, same algorithm as the registry used
+ * before compiled invokers.
+ * <pre>
+ *  - each node slices parameters and invokes the parent node recursively.
+ *  - the results of intermediate nodes are cached by parameters.
+ * </pre>
+ */
+public class ReflectiveChain {
+
+  private static final Pattern NODE_PATTERN = Pattern.compile(
+    "(\\w+)\\((\\d+)\\)"
+  );
+
+  private final Object root;
+  private final List<Method> methods;
+  private final List<Map<List<Object>, Object>> caches;
+  private final int[] splits;
+
+  /**
+   * Constructor.
+   * @param root the module instance.
+   * @param rootType the interface type of module.
+   * @param chain the method chain. e.g.) "getItemAt(1).volume(0).reset(0)"
+   */
+  public ReflectiveChain(Object root, Class<?> rootType, String chain) {
+    this.root = root;
+    this.methods = new ArrayList<>();
+    this.caches = new ArrayList<>();
+    Matcher m = NODE_PATTERN.matcher(chain);
+    Class<?> type = rootType;
+    List<Integer> splitList = new ArrayList<>();
+    int split = 0;
+    while (m.find()) {
+      Method method = findMethod(
+        type,
+        m.group(1),
+        Integer.parseInt(m.group(2))
+      );
+      methods.add(method);
+      caches.add(new HashMap<>());
+      splitList.add(split);
+      split += method.getParameterCount();
+      type =
+        TypeToken
+          .of(type)
+          .resolveType(method.getGenericReturnType())
+          .getRawType();
+    }
+    this.splits = splitList.stream().mapToInt(i -> i).toArray();
+  }
+
+  /**
+   * Invoke the last method of chain.
+   * @param params whole parameters of method chain.
+   * @return
+   * @throws Exception
+   */
+  public Object invoke(Object[] params) throws Exception {
+    return invoke(methods.size() - 1, params);
+  }
+
+  private Object invoke(int node, Object[] params)
+    throws IllegalAccessException, InvocationTargetException {
+    boolean cacheable = node < methods.size() - 1;
+    if (cacheable) {
+      Object result = caches.get(node).get(Arrays.asList(params));
+      if (result != null) {
+        return result;
+      }
+    }
+    int split = splits[node];
+    Object[] methodParams = ArrayUtils.subarray(params, split, params.length);
+    Object target = node == 0
+      ? root
+      : invoke(node - 1, ArrayUtils.subarray(params, 0, split));
+    Object result = methods.get(node).invoke(target, methodParams);
+    if (cacheable) {
+      caches.get(node).put(Arrays.asList(params), result);
+    }
+    return result;
+  }
+
+  private static Method findMethod(
+    Class<?> type,
+    String name,
+    int paramCount
+  ) {
+    return Stream
+      .of(type.getMethods())
+      .filter(m -> !m.isBridge())
+      .filter(m -> m.getName().equals(name))
+      .filter(m -> m.getParameterCount() == paramCount)
+      .reduce((a, b) ->
+        a.getReturnType().isAssignableFrom(b.getReturnType()) ? b : a
+      )
+      .orElseThrow(() ->
+        new IllegalArgumentException(
+          "method not found. " + type.getSimpleName() + "#" + name
+        )
+      );
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.benchmark;
+
+import com.google.common.reflect.TypeToken;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory stand-in for Bitwig API interfaces.
+ * <pre>
+ * - methods that return an interface return a stub of that interface,
+ *   the same instance is returned for the same arguments.
+ *   e.g.) host.createMainTrackBank(8, 2, 8).getItemAt(0).volume()
+ * - primitive, String, enum and array methods return a default value.
+ * - void methods do nothing.
+ * </pre>
+ */
+public final class Stubs {
+
+  // private constructor prevents instantiation
+  private Stubs() {}
+
+  /**
+   * Create a new stub instance.
+   * @param <T>
+   * @param type the interface type.
+   * @return
+   */
+  public static <T> T create(Class<T> type) {
+    return create(type, type.getSimpleName());
+  }
+
+  private static <T> T create(Class<T> type, String name) {
+    return type.cast(
+      Proxy.newProxyInstance(
+        type.getClassLoader(),
+        new Class<?>[] { type },
+        new StubHandler(type, name)
+      )
+    );
+  }
+
+  private static Object defaultValue(Class<?> type) {
+    if (type == boolean.class) {
+      return Boolean.FALSE;
+    } else if (type == char.class) {
+      return '\0';
+    } else if (type == byte.class) {
+      return (byte) 0;
+    } else if (type == short.class) {
+      return (short) 0;
+    } else if (type == int.class) {
+      return 0;
+    } else if (type == long.class) {
+      return 0L;
+    } else if (type == float.class) {
+      return 0f;
+    } else if (type == double.class) {
+      return 0d;
+    }
+    return null;
+  }
+
+  private static class StubHandler implements InvocationHandler {
+
+    private final TypeToken<?> type;
+    private final String name;
+    private final Map<Object, Object> children;
+
+    private StubHandler(Class<?> type, String name) {
+      this.type = TypeToken.of(type);
+      this.name = name;
+      this.children = new HashMap<>();
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+      if (method.getDeclaringClass() == Object.class) {
+        switch (method.getName()) {
+          case "hashCode":
+            return System.identityHashCode(proxy);
+          case "equals":
+            return proxy == args[0];
+          case "toString":
+            return name;
+          default:
+            return null;
+        }
+      }
+      Class<?> returnType = method.getReturnType();
+      if (returnType == void.class) {
+        return null;
+      }
+      if (returnType.isPrimitive()) {
+        return defaultValue(returnType);
+      }
+      if (returnType == String.class) {
+        return "";
+      }
+      if (returnType.isArray()) {
+        return Array.newInstance(returnType.getComponentType(), 0);
+      }
+      if (returnType.isEnum()) {
+        Object[] constants = returnType.getEnumConstants();
+        return constants.length > 0 ? constants[0] : null;
+      }
+      Object key = args == null || args.length == 0
+        ? method.getName()
+        : childKey(method, args);
+      Object child = children.get(key);
+      if (child == null) {
+        Class<?> childType = resolveReturnType(method);
+        if (!childType.isInterface()) {
+          return null;
+        }
+        child = create(childType, name + "." + method.getName());
+        children.put(key, child);
+      }
+      return child;
+    }
+
+    private List<Object> childKey(Method method, Object[] args) {
+      Object[] key = new Object[args.length + 1];
+      key[0] = method.getName();
+      System.arraycopy(args, 0, key, 1, args.length);
+      return Arrays.asList(key);
+    }
+
+    // resolve covariant and generic return type.
+    // e.g.) TrackBank#getItemAt(int) should return Track, not ObjectProxy.
+    private Class<?> resolveReturnType(Method method) {
+      Method m = method;
+      try {
+        m =
+          type
+            .getRawType()
+            .getMethod(method.getName(), method.getParameterTypes());
+      } catch (NoSuchMethodException ex) {
+        // use original
+      }
+      return type.resolveType(m.getGenericReturnType()).getRawType();
+    }
+  }
+}
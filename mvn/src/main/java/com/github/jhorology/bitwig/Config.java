@@ -30,6 +30,7 @@ import com.github.jhorology.bitwig.ext.api.VuMeterChannelMode;
 import com.github.jhorology.bitwig.ext.api.VuMeterPeakMode;
 import com.github.jhorology.bitwig.ext.api.VuMeterUsedFor;
 import com.github.jhorology.bitwig.extension.AbstractConfiguration;
+import com.github.jhorology.bitwig.websocket.OverloadPolicy;
 import com.github.jhorology.bitwig.websocket.protocol.Protocols;
 import com.google.gson.annotations.Expose;
 
@@ -55,6 +56,36 @@ public class Config extends AbstractConfiguration {
   @Expose
   private boolean ssdpEnabled = true;
 
+  @Expose
+  private OverloadPolicy overloadPolicy = OverloadPolicy.REJECT;
+
+  @Expose
+  private int maxQueuedRequestsPerClient = 64;
+
+  @Expose
+  private boolean lazyRegistry;
+
+  @Expose
+  private boolean asyncSerialization;
+
+  @Expose
+  private boolean notificationBatching;
+
+  @Expose
+  private boolean perMessageDeflate;
+
+  @Expose
+  private int compressionThreshold = 256;
+
+  @Expose
+  private int outboundHighWatermark = 32;
+
+  @Expose
+  private int outboundLowWatermark = 8;
+
+  @Expose
+  private int outboundDrainIntervalMillis = 10;
+
   //#if build.development
   @Expose
   //#endif
@@ -308,6 +339,88 @@ public class Config extends AbstractConfiguration {
     return ssdpEnabled;
   }
 
+  /**
+   * Returns a policy for the client that has too many queued requests.
+   * @return
+   */
+  public OverloadPolicy getOverloadPolicy() {
+    return overloadPolicy;
+  }
+
+  /**
+   * Returns a maximum number of queued requests per client.
+   * @return
+   */
+  public int getMaxQueuedRequestsPerClient() {
+    return maxQueuedRequestsPerClient;
+  }
+
+  /**
+   * Returns a whether the RPC methods are registered on demand.
+   * @return
+   */
+  public boolean isLazyRegistry() {
+    return lazyRegistry;
+  }
+
+  /**
+   * Returns a whether the messages are serialized and sent on encoder thread.
+   * @return
+   */
+  public boolean isAsyncSerialization() {
+    return asyncSerialization;
+  }
+
+  /**
+   * Returns a whether the notifications are batched per flush.
+   * @return
+   */
+  public boolean isNotificationBatching() {
+    return notificationBatching;
+  }
+
+  /**
+   * Returns a whether the permessage-deflate extension is negotiated.
+   * @return
+   */
+  public boolean isPerMessageDeflate() {
+    return perMessageDeflate;
+  }
+
+  /**
+   * Returns a minimum size of message in bytes to be compressed.
+   * @return
+   */
+  public int getCompressionThreshold() {
+    return compressionThreshold;
+  }
+
+  /**
+   * Returns a number of queued frames per client to start buffering
+   * notifications.
+   * @return
+   */
+  public int getOutboundHighWatermark() {
+    return outboundHighWatermark;
+  }
+
+  /**
+   * Returns a number of queued frames per client to resume sending buffered
+   * notifications.
+   * @return
+   */
+  public int getOutboundLowWatermark() {
+    return outboundLowWatermark;
+  }
+
+  /**
+   * Returns an interval in milliseconds of draining buffered notifications.
+   * @return
+   */
+  public int getOutboundDrainIntervalMillis() {
+    return outboundDrainIntervalMillis;
+  }
+
   /**
    * Return a number of worker threads
    * for performance test.
@@ -931,6 +1044,26 @@ public class Config extends AbstractConfiguration {
       }
     );
 
+    addEnumPrefItem(
+      "Overload Policy",
+      WEBSOCKET_PREF_CATEGORY,
+      v -> v.getDisplayName(),
+      this::getOverloadPolicy,
+      v -> {
+        overloadPolicy = v;
+      }
+    );
+
+    addIntPrefItem(
+      "Max queued requests per client",
+      WEBSOCKET_PREF_CATEGORY,
+      INT_OPTIONS_16TO128,
+      this::getMaxQueuedRequestsPerClient,
+      v -> {
+        maxQueuedRequestsPerClient = v;
+      }
+    );
+
     addBoolPrefItem(
       "Do not use requestFlush(safe but slower response)",
       WEBSOCKET_PREF_CATEGORY,
@@ -940,6 +1073,114 @@ public class Config extends AbstractConfiguration {
       }
     );
 
+    addIntPrefItem(
+      "Time budget per flush (ms)",
+      WEBSOCKET_PREF_CATEGORY,
+      0,
+      100,
+      "ms",
+      this::getDrainTimeBudgetMillis,
+      v -> {
+        drainTimeBudgetMillis = v;
+      }
+    );
+
+    addIntPrefItem(
+      "Task budget per flush (0=unlimited)",
+      WEBSOCKET_PREF_CATEGORY,
+      0,
+      1024,
+      "",
+      this::getDrainTaskBudget,
+      v -> {
+        drainTaskBudget = v;
+      }
+    );
+
+    addBoolPrefItem(
+      "Register methods on demand(faster startup)",
+      WEBSOCKET_PREF_CATEGORY,
+      this::isLazyRegistry,
+      v -> {
+        lazyRegistry = v;
+      }
+    );
+
+    addBoolPrefItem(
+      "Serialize messages on encoder thread",
+      WEBSOCKET_PREF_CATEGORY,
+      this::isAsyncSerialization,
+      v -> {
+        asyncSerialization = v;
+      }
+    );
+
+    addBoolPrefItem(
+      "Batch notifications per flush",
+      WEBSOCKET_PREF_CATEGORY,
+      this::isNotificationBatching,
+      v -> {
+        notificationBatching = v;
+      }
+    );
+
+    addBoolPrefItem(
+      "Use permessage-deflate compression",
+      WEBSOCKET_PREF_CATEGORY,
+      this::isPerMessageDeflate,
+      v -> {
+        perMessageDeflate = v;
+      }
+    );
+
+    addIntPrefItem(
+      "Compression threshold",
+      WEBSOCKET_PREF_CATEGORY,
+      0,
+      65536,
+      "bytes",
+      this::getCompressionThreshold,
+      v -> {
+        compressionThreshold = v;
+      }
+    );
+
+    addIntPrefItem(
+      "Outbound high watermark",
+      WEBSOCKET_PREF_CATEGORY,
+      1,
+      1024,
+      "frames",
+      this::getOutboundHighWatermark,
+      v -> {
+        outboundHighWatermark = v;
+      }
+    );
+
+    addIntPrefItem(
+      "Outbound low watermark",
+      WEBSOCKET_PREF_CATEGORY,
+      0,
+      1024,
+      "frames",
+      this::getOutboundLowWatermark,
+      v -> {
+        outboundLowWatermark = v;
+      }
+    );
+
+    addIntPrefItem(
+      "Outbound drain interval (ms)",
+      WEBSOCKET_PREF_CATEGORY,
+      1,
+      1000,
+      "ms",
+      this::getOutboundDrainIntervalMillis,
+      v -> {
+        outboundDrainIntervalMillis = v;
+      }
+    );
+
     //#if build.development
     addIntPrefItem(
       "Worker threads",
@@ -69,7 +69,8 @@ public class WebSocketRpcServerExtension extends AbstractExtension<Config> {
       new WebSocketRpcServer(
         config.getWebSocketPort(),
         protocol,
-        numWorkerThreads
+        numWorkerThreads,
+        config.isPerMessageDeflate() ? config.getCompressionThreshold() : -1
       )
     );
     modules.add(registry);
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.ext;
+
+import com.google.gson.annotations.Expose;
+import java.util.Arrays;
+
+/**
+ * JSON serializable snapshot class for states of note grid.<br>
+ * States are run-length encoded as pairs of [state, count] in step-major
+ * order, the index of element is (x * height + y).
+ */
+public class NoteStepStateGrid {
+
+  @Expose
+  private final int width;
+
+  @Expose
+  private final int height;
+
+  @Expose
+  private final int[] runs;
+
+  /**
+   * Constructor.
+   * @param width the number of steps.
+   * @param height the number of keys.
+   * @param states the states of grid elements in step-major order.
+   */
+  public NoteStepStateGrid(int width, int height, int[] states) {
+    this.width = width;
+    this.height = height;
+    this.runs = encode(states);
+  }
+
+  /**
+   * Returns the number of steps.
+   * @return
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the number of keys.
+   * @return
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns the run-length encoded states, pairs of [state, count].
+   * @return
+   */
+  public int[] getRuns() {
+    return runs;
+  }
+
+  private static int[] encode(int[] states) {
+    int[] runs = new int[states.length * 2];
+    int length = 0;
+    for (int i = 0; i < states.length; i++) {
+      if (length > 0 && runs[length - 2] == states[i]) {
+        runs[length - 1]++;
+      } else {
+        runs[length++] = states[i];
+        runs[length++] = 1;
+      }
+    }
+    return Arrays.copyOf(runs, length);
+  }
+}
@@ -39,4 +39,14 @@ public interface CollectionValue<T>
    * @return
    */
   Collection<T> values();
+
+  /**
+   * Return a compact snapshot of managed current values.<br>
+   * The snapshot is sent to new subscriber as a single notification,
+   * after that only changed values are notified.
+   * @return an array of current values by default.
+   */
+  default Object snapshot() {
+    return values().toArray();
+  }
 }
@@ -25,6 +25,7 @@ package com.github.jhorology.bitwig.ext.impl;
 import com.bitwig.extension.callback.ObjectValueChangedCallback;
 import com.bitwig.extension.controller.api.Clip;
 import com.github.jhorology.bitwig.ext.NoteStepState;
+import com.github.jhorology.bitwig.ext.NoteStepStateGrid;
 import com.github.jhorology.bitwig.ext.api.CollectionValue;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -40,6 +41,8 @@ class NoteStepStateValueImpl implements CollectionValue<NoteStepState> {
 
   private final List<ObjectValueChangedCallback<NoteStepState>> callbacks;
   private final Map<ImmutablePair<Integer, Integer>, NoteStepState> values;
+  private final int gridWidth;
+  private final int gridHeight;
   private int subscribeCount;
 
   /**
@@ -49,6 +52,8 @@ class NoteStepStateValueImpl implements CollectionValue<NoteStepState> {
   NoteStepStateValueImpl(Clip clip, int gridWidth, int gridHeight) {
     callbacks = new ArrayList<>();
     values = new HashMap<>();
+    this.gridWidth = gridWidth;
+    this.gridHeight = gridHeight;
     clip.addStepDataObserver(this::notifyNoteStepState);
   }
 
@@ -57,6 +62,27 @@ class NoteStepStateValueImpl implements CollectionValue<NoteStepState> {
     return values.values();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object snapshot() {
+    int[] states = new int[gridWidth * gridHeight];
+    values
+      .values()
+      .forEach(v -> {
+        if (
+          v.getX() >= 0 &&
+          v.getX() < gridWidth &&
+          v.getY() >= 0 &&
+          v.getY() < gridHeight
+        ) {
+          states[v.getX() * gridHeight + v.getY()] = v.getState();
+        }
+      });
+    return new NoteStepStateGrid(gridWidth, gridHeight, states);
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -54,6 +54,12 @@ public abstract class AbstractConfiguration {
   @Expose
   protected boolean doNotUseRequestFlush = false;
 
+  @Expose
+  protected int drainTimeBudgetMillis = 2;
+
+  @Expose
+  protected int drainTaskBudget = 0;
+
   // <--
 
   private ControllerHost host;
@@ -91,6 +97,25 @@ public abstract class AbstractConfiguration {
     return doNotUseRequestFlush;
   }
 
+  /**
+   * Return a time budget in milliseconds for running queued tasks at once.
+   * 0 means unlimited.
+   * @return
+   */
+  public int getDrainTimeBudgetMillis() {
+    return drainTimeBudgetMillis;
+  }
+
+  /**
+   * Return a number of tasks for running queued tasks at once.
+   * Each request of a JSON-RPC batch is counted as a task.
+   * 0 means unlimited.
+   * @return
+   */
+  public int getDrainTaskBudget() {
+    return drainTaskBudget;
+  }
+
   // TODO Guava 19 or above are able to register non-public @﻿Subscribe
 
   /**
@@ -35,7 +35,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Stack;
-import java.util.concurrent.Executor;
 import java.util.stream.Stream;
 import org.slf4j.Logger;
 
@@ -56,7 +55,7 @@ public abstract class AbstractExtension<T extends AbstractConfiguration>
   private InitEvent<T> initEvent;
   private ExitEvent<T> exitEvent;
   private FlushEvent<T> flushEvent;
-  private Executor asyncExecutor;
+  private ControlSurfaceSessionExecutor asyncExecutor;
   private Stack<Object> extensionModules;
 
   /**
@@ -84,7 +83,7 @@ public abstract class AbstractExtension<T extends AbstractConfiguration>
    * get a Executor to run the task from other than 'Control Surface Session' thread.
    * @return
    */
-  Executor getAsyncExecutor() {
+  ControlSurfaceSessionExecutor getAsyncExecutor() {
     return asyncExecutor;
   }
 
@@ -111,9 +110,13 @@ public abstract class AbstractExtension<T extends AbstractConfiguration>
     LOG.trace("Start initialization.");
     eventBus = new EventBus(this);
     asyncExecutor =
-      new ControlSurfaceSessionExecutor(config.isDoNotUseRequestFlush());
-    initEvent = new InitEvent<>(this);
-    exitEvent = new ExitEvent<>(this);
+      new ControlSurfaceSessionExecutor(
+        config.isDoNotUseRequestFlush(),
+        config.getDrainTimeBudgetMillis(),
+        config.getDrainTaskBudget()
+      );
+    initEvent = newInitEvent();
+    exitEvent = newExitEvent();
     flushEvent = new FlushEvent<>(this);
     extensionModules = new Stack<>();
     // register internal core module first
@@ -163,6 +166,25 @@ public abstract class AbstractExtension<T extends AbstractConfiguration>
     eventBus.post(flushEvent);
   }
 
+  /**
+   * Returns a new event of extension's start of lifecycle.<br>
+   * The event is posted by {@link #init()}, it can also be used to drive the
+   * modules without host (e.g. benchmarks).
+   * @return
+   */
+  public InitEvent<T> newInitEvent() {
+    return new InitEvent<>(this);
+  }
+
+  /**
+   * Returns a new event of extension's end of lifecycle.
+   * @return
+   * @see #newInitEvent()
+   */
+  public ExitEvent<T> newExitEvent() {
+    return new ExitEvent<>(this);
+  }
+
   /**
    * Handles exceptions thrown by subscribers.
    * @param ex
@@ -264,6 +286,17 @@ public abstract class AbstractExtension<T extends AbstractConfiguration>
     }
   }
 
+  /**
+   * Returns a path of the file that is placed next to rc file.<br>
+   * The file is deleted when the configuration is reset.
+   * @param suffix the suffix of file name.
+   * @return
+   */
+  public Path getRcFilePath(String suffix) {
+    Path rcFilePath = getRcFilePath();
+    return rcFilePath.resolveSibling(rcFilePath.getFileName() + suffix);
+  }
+
   private Path getRcFilePath() {
     StringBuilder fileName = new StringBuilder(".bitwig.extension.");
     fileName.append(getExtensionDefinition().getName());
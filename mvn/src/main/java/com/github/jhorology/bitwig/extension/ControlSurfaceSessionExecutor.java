@@ -24,12 +24,23 @@ package com.github.jhorology.bitwig.extension;
 
 import com.github.jhorology.bitwig.logging.LoggerFactory;
 import com.google.common.eventbus.Subscribe;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import org.slf4j.Logger;
 
 /**
- * Executor class that always runs tasks within 'ControllerHost#flush()' method.
+ * Executor class that always runs tasks within 'ControllerHost#flush()' method.<br>
+ * Tasks and attached event rings are drained by 'Control Surface Session' thread.<br>
+ * Polling interval backs off exponentially while idle, and flush requests are
+ * coalesced so that at most one request is in flight.
  */
 public class ControlSurfaceSessionExecutor implements Executor, Runnable {
 
@@ -37,19 +48,79 @@ public class ControlSurfaceSessionExecutor implements Executor, Runnable {
     ControlSurfaceSessionExecutor.class
   );
 
-  private static final int QUEUE_SIZE = 64;
+  private static final int QUEUE_SIZE = 1024;
+  // back-off time of producers while ring is full.
+  private static final long FULL_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(
+    100
+  );
+  // upper limit of polling interval while idle.
+  private static final long MAX_IDLE_POLL_MILLIS = 64L;
+  // polling is the only way to wake up if requestFlush is not used.
+  private static final long MAX_IDLE_POLL_MILLIS_NO_FLUSH = 8L;
 
-  private final ConcurrentLinkedQueue<Runnable> tasks;
+  private final MpscRing<TaskSlot> tasks;
+  private final Source<TaskSlot> taskSource;
+  // tasks executed while ring is full within 'Control Surface Session' thread.
+  private final ArrayDeque<Runnable> overflow;
+  private final List<Source<?>> sources;
   private ExecutionContext<?> context;
   private Thread controlSurfaceSession;
   private final boolean doNotUseRequestFlush;
+  private final long budgetNanos;
+  private final int budgetTasks;
+  private boolean draining;
+  // budget of current drain.
+  private boolean unlimited;
+  private long deadline;
+  private int remainingTasks;
+  // busy-period metrics.
+  private long drains;
+  private long handled;
+  private long busyNanos;
+  private long maxBusyNanos;
+  private long exhausted;
+  // flush scheduling.
+  private final AtomicBoolean flushRequested;
+  private final AtomicLong flushRequests;
+  private final AtomicLong coalescedFlushRequests;
+  private final long maxPollDelay;
+  private long pollDelay;
+  private long ticks;
+  private long idleTicks;
 
   /**
    * Constructor.
    */
   public ControlSurfaceSessionExecutor(boolean doNotUseRequestFlush) {
+    this(doNotUseRequestFlush, 0, 0);
+  }
+
+  /**
+   * Constructor.
+   * @param doNotUseRequestFlush
+   * @param budgetMillis the time budget per drain, or 0 for unlimited.
+   * @param budgetTasks the number of tasks per drain, or 0 for unlimited.
+   */
+  public ControlSurfaceSessionExecutor(
+    boolean doNotUseRequestFlush,
+    int budgetMillis,
+    int budgetTasks
+  ) {
     this.doNotUseRequestFlush = doNotUseRequestFlush;
-    this.tasks = new ConcurrentLinkedQueue<>();
+    this.budgetNanos =
+      TimeUnit.MILLISECONDS.toNanos(Math.max(0, budgetMillis));
+    this.budgetTasks = Math.max(0, budgetTasks);
+    this.tasks = new MpscRing<>(QUEUE_SIZE, TaskSlot::new);
+    this.taskSource = new Source<>(tasks, TaskSlot::run);
+    this.overflow = new ArrayDeque<>();
+    this.sources = new CopyOnWriteArrayList<>();
+    this.flushRequested = new AtomicBoolean();
+    this.flushRequests = new AtomicLong();
+    this.coalescedFlushRequests = new AtomicLong();
+    this.maxPollDelay =
+      doNotUseRequestFlush
+        ? MAX_IDLE_POLL_MILLIS_NO_FLUSH
+        : MAX_IDLE_POLL_MILLIS;
   }
 
   // TODO Guava 19 or above EventBus is able to register non-public @﻿Subscribe
@@ -63,12 +134,17 @@ public class ControlSurfaceSessionExecutor implements Executor, Runnable {
 
   @Subscribe
   public final void onFlush(FlushEvent<?> e) {
-    runAllQueuedTasks();
+    flushRequested.set(false);
+    if (runAllQueuedTasks() > 0) {
+      // under load, next tick should poll tightly.
+      pollDelay = 0L;
+    }
   }
 
   @Subscribe
   public final void onExit(ExitEvent<?> e) {
-    runAllQueuedTasks();
+    runQueuedTasks(true);
+    tasks.close();
   }
 
   /**
@@ -77,12 +153,24 @@ public class ControlSurfaceSessionExecutor implements Executor, Runnable {
    */
   @Override
   public void execute(Runnable command) {
-    tasks.offer(command);
-    if (Thread.currentThread() == controlSurfaceSession) {
-      runAllQueuedTasks();
-    } else if (context != null && !doNotUseRequestFlush) {
-      context.getHost().requestFlush();
+    if (isControlSurfaceSession() && !overflow.isEmpty()) {
+      // keep the order after overflowed tasks.
+      overflow.add(command);
+      return;
+    }
+    long seq = claim(tasks);
+    if (seq < 0) {
+      if (!tasks.isClosed() && isControlSurfaceSession()) {
+        // ring is full while running a task, defer to the drain loop.
+        overflow.add(command);
+      } else {
+        LOG.warn("executor has been closed, task is discarded.");
+      }
+      return;
     }
+    tasks.get(seq).task = command;
+    tasks.publish(seq);
+    signal();
     if (LOG.isWarnEnabled()) {
       if (tasks.size() > (QUEUE_SIZE * 3 / 4)) {
         LOG.warn(
@@ -93,27 +181,278 @@ public class ControlSurfaceSessionExecutor implements Executor, Runnable {
     }
   }
 
-  private void runAllQueuedTasks() {
-    Runnable task = tasks.poll();
-    while (task != null) {
-      context.init();
-      try {
-        task.run();
-      } catch (Exception ex) {
-        LOG.error("task execution error.", ex);
-      } finally {
-        task = tasks.poll();
-        context.destroy();
+  /**
+   * Attach a ring to be drained by 'Control Surface Session' thread.<br>
+   * The producers of ring should use {@link #claim(MpscRing)} and
+   * {@link #signal()}.
+   * @param <S>
+   * @param ring
+   * @param handler
+   */
+  public <S> void attach(MpscRing<S> ring, MpscRing.Handler<S> handler) {
+    sources.add(new Source<>(ring, handler));
+  }
+
+  /**
+   * Detach and close a ring. Remaining slots are discarded.
+   * @param ring
+   */
+  public void detach(MpscRing<?> ring) {
+    ring.close();
+    sources.removeIf(source -> source.ring == ring);
+  }
+
+  /**
+   * Claims a slot of the ring.<br>
+   * If the ring is full, the producer thread waits until the slot is freed.
+   * @param ring
+   * @return a sequence number of claimed slot, or -1 if ring is closed.
+   */
+  public long claim(MpscRing<?> ring) {
+    long seq = ring.tryClaim();
+    while (seq < 0 && !ring.isClosed()) {
+      if (isControlSurfaceSession()) {
+        if (draining) {
+          return -1;
+        }
+        runAllQueuedTasks();
+      } else {
+        requestFlush();
+        LockSupport.parkNanos(FULL_BACKOFF_NANOS);
+      }
+      seq = ring.tryClaim();
+    }
+    return seq;
+  }
+
+  /**
+   * Notify that slots have been published.
+   */
+  public void signal() {
+    if (isControlSurfaceSession()) {
+      runAllQueuedTasks();
+    } else {
+      requestFlush();
+    }
+  }
+
+  /**
+   * Consume a unit of the budget of current drain for a part of long task.<br>
+   * A long task (e.g. a batch of requests) should be split into parts, and
+   * the remaining parts should be continued by {@link #execute(Runnable)}
+   * if the budget has been exhausted. The continued task runs before the
+   * slots of attached rings in next drain.<br>
+   * This method must be called within 'Control Surface Session' thread.
+   * @return false if the budget has been exhausted.
+   */
+  public boolean consumeBudget() {
+    if (!draining) {
+      // task is not run by drain loop.
+      return true;
+    }
+    remainingTasks--;
+    return hasBudget();
+  }
+
+  /**
+   * Request a flush to host, at most one request is in flight.
+   */
+  private void requestFlush() {
+    if (context != null && !doNotUseRequestFlush) {
+      if (flushRequested.compareAndSet(false, true)) {
+        flushRequests.incrementAndGet();
+        context.getHost().requestFlush();
+      } else {
+        coalescedFlushRequests.incrementAndGet();
+      }
+    }
+  }
+
+  private boolean isControlSurfaceSession() {
+    return Thread.currentThread() == controlSurfaceSession;
+  }
+
+  /**
+   * Returns a report of busy-period metrics.
+   * @return
+   */
+  public Object report() {
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("budgetMillis", budgetNanos / 1e6);
+    report.put("budgetTasks", budgetTasks);
+    report.put("queuedTasks", tasks.size());
+    report.put("overflowTasks", overflow.size());
+    report.put("drains", drains);
+    report.put("handled", handled);
+    report.put("averageBusyMillis", drains > 0 ? busyNanos / 1e6 / drains : 0d);
+    report.put("maxBusyMillis", maxBusyNanos / 1e6);
+    report.put(
+      "maxBudgetUsage",
+      budgetNanos > 0 ? (double) maxBusyNanos / budgetNanos : 0d
+    );
+    report.put("exhausted", exhausted);
+    report.put("ticks", ticks);
+    report.put("idleTicks", idleTicks);
+    report.put("pollDelayMillis", pollDelay);
+    report.put("flushRequests", flushRequests.get());
+    report.put("coalescedFlushRequests", coalescedFlushRequests.get());
+    return report;
+  }
+
+  private int runAllQueuedTasks() {
+    return runQueuedTasks(false);
+  }
+
+  /**
+   * Run queued tasks within the budget.<br>
+   * Remaining tasks are carried over to next tick or flush.
+   * @param all ignore the budget or not.
+   * @return the number of handled tasks.
+   */
+  private int runQueuedTasks(boolean all) {
+    if (draining || context == null) {
+      // queued tasks will be handled by outer loop.
+      return 0;
+    }
+    draining = true;
+    long start = System.nanoTime();
+    unlimited = all || (budgetNanos == 0 && budgetTasks == 0);
+    deadline = start + budgetNanos;
+    remainingTasks = budgetTasks > 0 ? budgetTasks : Integer.MAX_VALUE;
+    int total = 0;
+    try {
+      int count;
+      do {
+        count = taskSource.drain();
+        count += drainOverflow();
+        for (Source<?> source : sources) {
+          count += source.drain();
+        }
+        total += count;
+      } while (count > 0 && hasBudget());
+    } finally {
+      draining = false;
+      if (total > 0) {
+        long elapsed = System.nanoTime() - start;
+        drains++;
+        handled += total;
+        busyNanos += elapsed;
+        if (elapsed > maxBusyNanos) {
+          maxBusyNanos = elapsed;
+        }
+      }
+    }
+    if (!hasBudget() && hasQueuedTasks()) {
+      exhausted++;
+      // carry over to next flush.
+      requestFlush();
+    }
+    return total;
+  }
+
+  private boolean hasBudget() {
+    return (
+      unlimited ||
+      (
+        remainingTasks > 0 &&
+        (budgetNanos == 0 || System.nanoTime() - deadline < 0)
+      )
+    );
+  }
+
+  private int drainOverflow() {
+    int count = 0;
+    Runnable command;
+    while (hasBudget() && (command = overflow.poll()) != null) {
+      remainingTasks--;
+      count++;
+      runInContext(command);
+    }
+    return count;
+  }
+
+  private void runInContext(Runnable command) {
+    context.init();
+    try {
+      command.run();
+    } catch (Exception ex) {
+      LOG.error("task execution error.", ex);
+    } finally {
+      context.destroy();
+    }
+  }
+
+  private boolean hasQueuedTasks() {
+    if (tasks.size() > 0 || !overflow.isEmpty()) {
+      return true;
+    }
+    for (Source<?> source : sources) {
+      if (source.ring.size() > 0) {
+        return true;
       }
     }
+    return false;
   }
 
   @Override
   public void run() {
     try {
-      runAllQueuedTasks();
+      ticks++;
+      // the tick drains queue anyway, in-flight request is no longer needed.
+      flushRequested.set(false);
+      if (runAllQueuedTasks() > 0 || hasQueuedTasks()) {
+        pollDelay = 0L;
+      } else {
+        idleTicks++;
+        // exponential back-off while idle.
+        pollDelay = Math.min(Math.max(1L, pollDelay * 2), maxPollDelay);
+      }
     } finally {
-      context.getHost().scheduleTask(this, 0L);
+      context.getHost().scheduleTask(this, pollDelay);
+    }
+  }
+
+  private static class TaskSlot {
+
+    private Runnable task;
+
+    void run() {
+      Runnable command = task;
+      task = null;
+      command.run();
+    }
+  }
+
+  // a ring with the handler that runs each slot within execution context.
+  private class Source<S> implements MpscRing.Handler<S> {
+
+    private final MpscRing<S> ring;
+    private final MpscRing.Handler<S> handler;
+
+    Source(MpscRing<S> ring, MpscRing.Handler<S> handler) {
+      this.ring = ring;
+      this.handler = handler;
+    }
+
+    int drain() {
+      int count = 0;
+      while (hasBudget() && ring.poll(this)) {
+        remainingTasks--;
+        count++;
+      }
+      return count;
+    }
+
+    @Override
+    public void handle(S slot) {
+      context.init();
+      try {
+        handler.handle(slot);
+      } catch (Exception ex) {
+        LOG.error("task execution error.", ex);
+      } finally {
+        context.destroy();
+      }
     }
   }
 }
@@ -23,8 +23,10 @@
 package com.github.jhorology.bitwig.extension;
 
 import com.github.jhorology.bitwig.logging.LoggerFactory;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 
 /**
@@ -38,20 +40,57 @@ public class ExecutionContext<T extends AbstractConfiguration>
   private static final Logger LOG = LoggerFactory.getLogger(
     ExecutionContext.class
   );
+  private static final AtomicInteger KEY_IDS = new AtomicInteger();
   private static ExecutionContext<?> instance;
-  private final Map<String, Object> values;
+  private Map<String, Object> values;
+  private Object[] slots;
   private boolean initialized;
 
+  /**
+   * A registered key of typed contextual value slot.
+   * @param <C> the type of value.
+   */
+  public static final class Key<C> {
+
+    private final int id;
+    private final String name;
+
+    private Key(int id, String name) {
+      this.id = id;
+      this.name = name;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+      return name + "#" + id;
+    }
+  }
+
   /**
    * Constructor.
    * @param extension
    */
   ExecutionContext(AbstractExtension<T> extension) {
     super(extension);
-    values = new HashMap<>();
+    slots = new Object[KEY_IDS.get()];
     instance = this;
   }
 
+  /**
+   * Register a new key of typed contextual value slot.<br>
+   * Slot is pre-allocated per key, so get/set by key doesn't need hash lookup.
+   * Keys should be registered once as static field.
+   * @param <C>
+   * @param clazz the type of value.
+   * @return
+   */
+  public static <C> Key<C> registerKey(Class<C> clazz) {
+    return new Key<>(KEY_IDS.getAndIncrement(), clazz.getName());
+  }
+
   /**
    * get a current context.
    * @return
@@ -81,16 +120,47 @@ public class ExecutionContext<T extends AbstractConfiguration>
    * destroy the context
    */
   void destroy() {
-    instance.values.clear();
+    Arrays.fill(slots, null);
+    if (values != null && !values.isEmpty()) {
+      values.clear();
+    }
     initialized = false;
   }
 
+  /**
+   * set a contextual value with key.
+   * @param <C>
+   * @param key
+   * @param value
+   */
+  public <C> void set(Key<C> key, C value) {
+    if (key.id >= slots.length) {
+      // key registered after construction
+      slots = Arrays.copyOf(slots, key.id + 1);
+    }
+    slots[key.id] = value;
+  }
+
+  /**
+   * get a contextual value by key.
+   * @param <C>
+   * @param key
+   * @return value
+   */
+  @SuppressWarnings("unchecked")
+  public <C> C get(Key<C> key) {
+    return key.id < slots.length ? (C) slots[key.id] : null;
+  }
+
   /**
    * set a contextual value with name.
    * @param name
    * @param value
    */
   public void set(String name, Object value) {
+    if (values == null) {
+      values = new HashMap<>();
+    }
     values.put(name, value);
   }
 
@@ -100,7 +170,7 @@ public class ExecutionContext<T extends AbstractConfiguration>
    * @return value
    */
   public Object get(String name) {
-    return values.get(name);
+    return values != null ? values.get(name) : null;
   }
 
   /**
@@ -110,7 +180,7 @@ public class ExecutionContext<T extends AbstractConfiguration>
    * @param value
    */
   public <C> void set(Class<C> clazz, C value) {
-    values.put(clazz.getName(), value);
+    set(clazz.getName(), value);
   }
 
   /**
@@ -121,6 +191,6 @@ public class ExecutionContext<T extends AbstractConfiguration>
    */
   @SuppressWarnings("unchecked")
   public <C> C get(Class<C> clazz) {
-    return (C) values.get(clazz.getName());
+    return (C) get(clazz.getName());
   }
 }
@@ -23,7 +23,6 @@
 package com.github.jhorology.bitwig.extension;
 
 import com.bitwig.extension.controller.api.ControllerHost;
-import java.util.concurrent.Executor;
 
 /**
  * An abstract base class for extension event.
@@ -69,7 +68,7 @@ public abstract class ExtensionContextBase<T extends AbstractConfiguration> {
    * get a Executor to run the task from other than 'Control Surface Session' thread.
    * @return
    */
-  public Executor getAsyncExecutor() {
+  public ControlSurfaceSessionExecutor getAsyncExecutor() {
     return extension.getAsyncExecutor();
   }
 
@@ -112,6 +112,19 @@ public class ExtensionUtils {
     gson.fromJson(json, dst.getClass());
   }
 
+  /**
+   * Returns the JSON representation of specified instance.<br>
+   * The fields of instance should be annotated with {@link com.google.gson.annotations.Expose @Expose}.
+   * @param instance the object for which JSON representation is to be created.
+   * @return
+   */
+  public static String toJson(Object instance) {
+    Gson gson = new GsonBuilder()
+      .excludeFieldsWithoutExposeAnnotation()
+      .create();
+    return gson.toJson(instance);
+  }
+
   /**
    * Write the JSON file of specified instance.<br>
    * The fields of instance should be annotated with {@link com.google.gson.annotations.Expose @Expose}.
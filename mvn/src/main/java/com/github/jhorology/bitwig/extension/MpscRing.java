@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.extension;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * A bounded lock-free multi-producer single-consumer ring buffer.<br>
+ * Slots are pre-allocated and reused, producers fill a claimed slot and
+ * publish it, a single consumer handles published slots in order.
+ * <pre>{@code
+ *   // producer thread
+ *   long seq = ring.tryClaim();
+ *   if (seq >= 0) {
+ *     ring.get(seq).value = value;
+ *     ring.publish(seq);
+ *   }
+ *   // consumer thread
+ *   while (ring.poll(handler)) {}
+ * }</pre>
+ * @param <S> the type of slot.
+ */
+public class MpscRing<S> {
+
+  /**
+   * The consumer of published slot.
+   * @param <S> the type of slot.
+   */
+  @FunctionalInterface
+  public interface Handler<S> {
+    /**
+     * Handles a published slot.<br>
+     * The slot is reused after return, the handler should clear references.
+     * @param slot
+     */
+    void handle(S slot);
+  }
+
+  private final Object[] slots;
+  private final int mask;
+  // a sequence number of published slot at each index.
+  private final AtomicLongArray published;
+  // next sequence to claim.
+  private final AtomicLong tail = new AtomicLong();
+  // next sequence to consume, written only by the consumer.
+  private final AtomicLong head = new AtomicLong();
+  private volatile boolean closed;
+
+  /**
+   * Constructor.
+   * @param capacity the number of slots, rounded up to a power of two.
+   * @param factory the factory of slot.
+   */
+  public MpscRing(int capacity, Supplier<S> factory) {
+    if (capacity < 1 || capacity > (1 << 30)) {
+      throw new IllegalArgumentException("capacity:" + capacity);
+    }
+    int size = Integer.highestOneBit(capacity);
+    if (size < capacity) {
+      size <<= 1;
+    }
+    slots = new Object[size];
+    mask = size - 1;
+    published = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      slots[i] = factory.get();
+      // not yet published for first lap.
+      published.set(i, i - size);
+    }
+  }
+
+  /**
+   * Claims a next slot.<br>
+   * This method is called from any producer threads.
+   * @return a sequence number of claimed slot, or -1 if ring is full or closed.
+   */
+  public long tryClaim() {
+    while (!closed) {
+      long seq = tail.get();
+      if (seq - head.get() > mask) {
+        return -1;
+      }
+      if (tail.compareAndSet(seq, seq + 1)) {
+        return seq;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns a slot of claimed sequence.
+   * @param sequence
+   * @return
+   */
+  @SuppressWarnings("unchecked")
+  public S get(long sequence) {
+    return (S) slots[(int) sequence & mask];
+  }
+
+  /**
+   * Publishes a claimed slot to the consumer.
+   * @param sequence
+   */
+  public void publish(long sequence) {
+    published.lazySet((int) sequence & mask, sequence);
+  }
+
+  /**
+   * Handles a next published slot.<br>
+   * This method is called from only the consumer thread.
+   * @param handler
+   * @return false if no slot has been published.
+   */
+  @SuppressWarnings("unchecked")
+  public boolean poll(Handler<S> handler) {
+    long seq = head.get();
+    int index = (int) seq & mask;
+    if (published.get(index) != seq) {
+      return false;
+    }
+    try {
+      handler.handle((S) slots[index]);
+    } finally {
+      head.lazySet(seq + 1);
+    }
+    return true;
+  }
+
+  /**
+   * Returns an approximate number of claimed slots.
+   * @return
+   */
+  public int size() {
+    return (int) Math.max(0L, tail.get() - head.get());
+  }
+
+  /**
+   * Returns the number of slots.
+   * @return
+   */
+  public int capacity() {
+    return mask + 1;
+  }
+
+  /**
+   * Stops accepting new claims. Already published slots are still consumable.
+   */
+  public void close() {
+    closed = true;
+  }
+
+  /**
+   * Returns this ring is closed or not.
+   * @return
+   */
+  public boolean isClosed() {
+    return closed;
+  }
+}
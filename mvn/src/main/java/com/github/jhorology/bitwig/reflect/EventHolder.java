@@ -25,20 +25,25 @@ package com.github.jhorology.bitwig.reflect;
 import com.bitwig.extension.controller.api.ControllerHost;
 import com.bitwig.extension.controller.api.Value;
 import com.github.jhorology.bitwig.Config;
+import com.github.jhorology.bitwig.ext.BeatTime;
 import com.github.jhorology.bitwig.ext.api.CollectionValue;
 import com.github.jhorology.bitwig.logging.LoggerFactory;
+import com.github.jhorology.bitwig.rpc.EventSubscription;
 import com.github.jhorology.bitwig.rpc.RpcEvent;
 import com.github.jhorology.bitwig.rpc.RpcException;
-import com.github.jhorology.bitwig.websocket.protocol.Notification;
+import com.github.jhorology.bitwig.websocket.protocol.NotificationTemplate;
 import com.github.jhorology.bitwig.websocket.protocol.PushModel;
 import com.github.jhorology.bitwig.websocket.protocol.RequestContext;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.List;
+import java.util.LinkedHashSet;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.function.Consumer;
 import org.apache.commons.lang3.ArrayUtils;
 import org.java_websocket.WebSocket;
 import org.slf4j.Logger;
@@ -53,47 +58,131 @@ public class EventHolder extends MethodHolder implements RpcEvent {
 
   private static final long WAIT_HOST_TRIGGER_ON_SUBSCRIBE = 150L;
 
-  private final List<int[]> bankIndexCombinations;
-  private final Collection<WebSocket> clients;
+  private final SubscriberSet clients;
+  private final SubscriptionIndex subscriptionIndex;
+  // subscribers with rate limiting
+  private final Map<WebSocket, EventSubscription> subscriptions;
   private final PushModel pushModel;
   private final ControllerHost host;
-  private final List<PrimitiveEvent> primitiveEvents;
-  private final PrimitiveEvent primitiveEvent;
+  // the number of bank item combinations, 1 if this event is not a bank item.
+  private final int size;
+  // the last reported values from host, indexed by flat index of bank items.
+  private final Object[][] lastReportedParams;
+  private final BitSet hostTriggered;
+  // sparse primitive events, materialized at first subscription.
+  private final PrimitiveEvent[] primitiveEvents;
+  private final BitSet materialized;
 
   /**
    *  A primitive event class.
    */
   private class PrimitiveEvent {
 
-    private boolean hostTriggered;
-    // the last reported value from host
-    private Object[] lastReportedParams;
+    private final int index;
     private final Object[] bankIndexes;
+    // subscribers of this bank item.
+    private final SubscriberSet subscribers;
+    // subscribers without rate limiting
+    private final SubscriberSet directClients;
+    private NotificationTemplate template;
     private Value<?> value;
     private boolean collectionValue;
+    // changed elements of collection value, notified at next tick.
+    private LinkedHashSet<Object> pendingDeltas;
+    private Map<WebSocket, Throttle> throttles;
+
+    /**
+     * A trailing-edge throttle of notifications for a client.
+     */
+    private class Throttle {
+
+      private final WebSocket client;
+      private final long interval;
+      private final double minDelta;
+      private long sentAt;
+      private Object[] sentParams;
+      private Object[] pendingParams;
+      private boolean scheduled;
+
+      private Throttle(WebSocket client, EventSubscription subscription) {
+        this.client = client;
+        this.interval =
+          subscription.getMaxHz() > 0
+            ? (long) (1_000_000_000d / subscription.getMaxHz())
+            : 0L;
+        this.minDelta = subscription.getMinDelta();
+      }
+
+      private void offer(Object[] params) {
+        if (collectionValue && pendingParams != null) {
+          // deltas of collection must not be lost.
+          LinkedHashSet<Object> merged = new LinkedHashSet<>();
+          Collections.addAll(merged, pendingParams);
+          Collections.addAll(merged, params);
+          params = merged.toArray();
+        }
+        if (
+          !collectionValue &&
+          minDelta > 0 &&
+          sentParams != null &&
+          isWithinDelta(sentParams, params, minDelta)
+        ) {
+          // back to the sent value, pending one is stale.
+          pendingParams = null;
+          return;
+        }
+        long now = System.nanoTime();
+        long elapsed = now - sentAt;
+        if (sentParams == null || elapsed >= interval) {
+          send(params, now);
+          return;
+        }
+        // the last value always arrives at trailing edge.
+        pendingParams = params;
+        if (!scheduled) {
+          scheduled = true;
+          host.scheduleTask(
+            this::sendPending,
+            (interval - elapsed + 999_999L) / 1_000_000L
+          );
+        }
+      }
+
+      private void sendPending() {
+        scheduled = false;
+        if (pendingParams != null && throttles.get(client) == this) {
+          send(pendingParams, System.nanoTime());
+        }
+      }
+
+      private void send(Object[] params, long now) {
+        sentAt = now;
+        sentParams = params;
+        pendingParams = null;
+        post(params, client);
+      }
+    }
 
     /**
      * Constructor.
-     * @param bankIndexes
+     * @param index the flat index of bank items.
      */
     @SuppressWarnings({ "UseSpecificCatch" })
-    private PrimitiveEvent(int[] bankIndexes) {
+    private PrimitiveEvent(int index) {
       // TODO need to support that intermediate node has arguments other than bank indexes.
       // e.g) BooleanValue applocation.getActions(id).isEnabled();
-      this.bankIndexes =
-        ArrayUtils.addAll(
-          new Object[] {},
-          (Object[]) ArrayUtils.toObject(bankIndexes)
-        );
+      this.index = index;
+      this.bankIndexes = bankIndexesOf(index);
+      this.subscribers = new SubscriberSet();
+      this.directClients = new SubscriberSet();
       try {
+        // same instance as observed one, 'cause the result is cached.
         value = (Value<?>) invoke(this.bankIndexes);
         this.collectionValue = value instanceof CollectionValue;
-        BitwigCallbacks.registerObserver(value, this::onValueChanged);
-        // since API 10 counter based. unsubscribe called more times than subscribe
-        // value.unsubscribe();
       } catch (Exception ex) {
-        setError(ex, "Failed registering observer.");
-        LOG.error(event() + " event: Failed registering observer.", ex);
+        setError(ex, "Failed materializing event.");
+        LOG.error(event() + " event: Failed materializing event.", ex);
+        throw new RpcException(ex);
       }
     }
 
@@ -102,14 +191,93 @@ public class EventHolder extends MethodHolder implements RpcEvent {
      * @param params
      */
     private void onValueChanged(Object[] params) {
-      hostTriggered = true;
-      lastReportedParams = params;
-      if (!clients.isEmpty() && pushModel != null) {
-        pushModel.push(newNotification(params), clients);
+      if (subscribers.isEmpty() || pushModel == null) {
+        return;
+      }
+      if (collectionValue) {
+        addDeltas(params);
+        return;
+      }
+      fanOut(params);
+    }
+
+    private void fanOut(Object[] params) {
+      if (!directClients.isEmpty()) {
+        pushModel.push(template(), params, directClients);
+      }
+      if (directClients.size() < subscribers.size()) {
+        for (WebSocket client : subscribers.snapshot()) {
+          EventSubscription s = subscriptions.get(client);
+          if (s != null) {
+            throttle(client, s).offer(params);
+          }
+        }
       }
     }
 
-    private void internalSubscribe(WebSocket client) {
+    /**
+     * Batch changed elements of collection value until next tick.
+     * @param params
+     */
+    private void addDeltas(Object[] params) {
+      if (pendingDeltas == null) {
+        pendingDeltas = new LinkedHashSet<>();
+      }
+      boolean scheduled = !pendingDeltas.isEmpty();
+      Collections.addAll(pendingDeltas, params);
+      if (!scheduled) {
+        host.scheduleTask(this::flushDeltas, 0L);
+      }
+    }
+
+    /**
+     * post batched elements as a single notification.
+     */
+    private void flushDeltas() {
+      if (pendingDeltas.isEmpty()) {
+        return;
+      }
+      Object[] params = pendingDeltas.toArray();
+      pendingDeltas.clear();
+      if (!subscribers.isEmpty() && pushModel != null) {
+        fanOut(params);
+      }
+    }
+
+    private Throttle throttle(WebSocket client, EventSubscription s) {
+      if (throttles == null) {
+        throttles = new HashMap<>();
+      }
+      Throttle throttle = throttles.get(client);
+      if (throttle == null) {
+        throttle = new Throttle(client, s);
+        throttles.put(client, throttle);
+      }
+      return throttle;
+    }
+
+    private void removeThrottle(WebSocket client) {
+      if (throttles != null) {
+        throttles.remove(client);
+      }
+    }
+
+    /**
+     * Add or update a subscriber of this bank item.
+     * @param client
+     * @param direct the client doesn't limit the rate of notifications.
+     */
+    private void internalSubscribe(WebSocket client, boolean direct) {
+      // reset states of previous options
+      removeThrottle(client);
+      if (direct) {
+        directClients.add(client);
+      } else {
+        directClients.remove(client);
+      }
+      if (!subscribers.add(client)) {
+        return;
+      }
       if (syncSubscribedState() && !collectionValue) {
         // if Subscribable#subscribed() was called, (it's meaning first client of subscribers list.)
         // host may trigger callback, but it's only for the value that has changed since last reported.
@@ -129,6 +297,18 @@ public class EventHolder extends MethodHolder implements RpcEvent {
       }
     }
 
+    /**
+     * Remove a subscriber of this bank item.
+     * @param client
+     */
+    private void internalUnsubscribe(WebSocket client) {
+      removeThrottle(client);
+      directClients.remove(client);
+      if (subscribers.remove(client)) {
+        syncSubscribedState();
+      }
+    }
+
     /**
      * Sync subscription states between RPC and Bitwig Studio.
      * @return host side state will change to subscribed
@@ -136,12 +316,12 @@ public class EventHolder extends MethodHolder implements RpcEvent {
     @SuppressWarnings({ "UseSpecificCatch" })
     private boolean syncSubscribedState() {
       try {
-        if (clients.isEmpty() && value.isSubscribed()) {
+        if (subscribers.isEmpty() && value.isSubscribed()) {
           value.unsubscribe();
           return false;
         }
-        if (!clients.isEmpty() && !value.isSubscribed()) {
-          hostTriggered = false;
+        if (!subscribers.isEmpty() && !value.isSubscribed()) {
+          hostTriggered.clear(index);
           value.subscribe();
           return true;
         }
@@ -160,10 +340,12 @@ public class EventHolder extends MethodHolder implements RpcEvent {
       if (pushModel != null) {
         host.scheduleTask(
           () -> {
-            if (hostTriggered || lastReportedParams == null) {
+            if (
+              hostTriggered.get(index) || lastReportedParams[index] == null
+            ) {
               return;
             }
-            post(lastReportedParams, client);
+            post(lastReportedParams[index], client);
           },
           WAIT_HOST_TRIGGER_ON_SUBSCRIBE
         );
@@ -177,16 +359,23 @@ public class EventHolder extends MethodHolder implements RpcEvent {
       // do not post message directly in here.
       // 'cause message should be sent at after Request/Reponse sequence.
       if (collectionValue) {
-        ((CollectionValue<?>) value).values()
-          .forEach(v -> {
-            RequestContext
-              .getContext()
-              .addNotification(newNotification(new Object[] { v }));
-          });
-      } else if (lastReportedParams != null) {
+        // a single snapshot instead of each element, wrapped to be
+        // distinguished from deltas.
+        Object snapshot = Collections.singletonMap(
+          "snapshot",
+          ((CollectionValue<?>) value).snapshot()
+        );
+        RequestContext
+          .getContext()
+          .addNotification(
+            template().newNotification(new Object[] { snapshot })
+          );
+      } else if (lastReportedParams[index] != null) {
         RequestContext
           .getContext()
-          .addNotification(newNotification(lastReportedParams));
+          .addNotification(
+            template().newNotification(lastReportedParams[index])
+          );
       }
     }
 
@@ -194,27 +383,37 @@ public class EventHolder extends MethodHolder implements RpcEvent {
      * post event to specified client.
      */
     private void post(Object[] params, WebSocket client) {
-      if (clients.contains(client) && pushModel != null) {
-        pushModel.push(newNotification(params), client);
+      if (subscribers.contains(client) && pushModel != null) {
+        pushModel.push(template(), params, client);
       }
     }
 
     private void clear() {
-      if (clients.size() >= 0 && value.isSubscribed()) {
+      if (pendingDeltas != null) {
+        pendingDeltas.clear();
+      }
+      if (value.isSubscribed()) {
         value.unsubscribe();
       }
     }
 
     /**
-     * Create a new notification message.
-     * @param params
+     * Get a notification template that has the bank indexes as leading params.
+     * The template is created at first use, 'cause the protocol may not be
+     * ready at registering events.
      */
-    private Notification newNotification(Object[] params) {
-      if (bankIndexes.length > 0) {
-        // to Object array
-        params = ArrayUtils.addAll((Object[]) bankIndexes, params);
+    private NotificationTemplate template() {
+      if (template == null) {
+        template =
+          pushModel != null
+            ? pushModel.newNotificationTemplate(absoluteName, bankIndexes)
+            : new NotificationTemplate(absoluteName, bankIndexes);
+        if (collectionValue) {
+          // deltas are merged instead of replaced in outbound buffer.
+          template.markDelta();
+        }
       }
-      return new Notification(absoluteName, params);
+      return template;
     }
 
     private String event() {
@@ -239,6 +438,7 @@ public class EventHolder extends MethodHolder implements RpcEvent {
    * @param bankItemCount
    * @param pushModel
    * @param host
+   * @param subscriptionIndex
    */
   EventHolder(
     Config config,
@@ -247,28 +447,21 @@ public class EventHolder extends MethodHolder implements RpcEvent {
     RegistryNode parantNode,
     int bankItemCount,
     ControllerHost host,
-    PushModel pushModel
+    PushModel pushModel,
+    SubscriptionIndex subscriptionIndex
   ) {
     super(config, method, nodeType, parantNode, bankItemCount);
-    // clients = new LinkedList<>();
     this.host = host;
     this.pushModel = pushModel;
-    this.clients = new ArrayList<>();
-    this.bankIndexCombinations =
-      bankDimension.length > 0
-        ? createBankIndexCombinations(bankDimension)
-        : null;
-    if (bankIndexCombinations != null) {
-      this.primitiveEvents =
-        bankIndexCombinations
-          .stream()
-          .map(combination -> new PrimitiveEvent(combination))
-          .collect(Collectors.toList());
-      this.primitiveEvent = null;
-    } else {
-      this.primitiveEvents = null;
-      this.primitiveEvent = new PrimitiveEvent(new int[] {});
-    }
+    this.subscriptionIndex = subscriptionIndex;
+    this.clients = new SubscriberSet();
+    this.subscriptions = new HashMap<>();
+    this.size = sizeOf(bankDimension);
+    this.lastReportedParams = new Object[size][];
+    this.hostTriggered = new BitSet(size);
+    this.primitiveEvents = new PrimitiveEvent[size];
+    this.materialized = new BitSet(size);
+    registerObservers();
   }
 
   /**
@@ -276,16 +469,41 @@ public class EventHolder extends MethodHolder implements RpcEvent {
    */
   @Override
   public void subscribe(WebSocket client) {
+    subscribe(client, null);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void subscribe(WebSocket client, EventSubscription subscription) {
     if (getError() != null) {
       throw new RpcException(getError());
     }
-    if (!clients.contains(client)) {
-      clients.add(client);
-      if (primitiveEvent != null) {
-        primitiveEvent.internalSubscribe(client);
+    BitSet indexes = indexesOf(subscription);
+    for (
+      int index = indexes.nextSetBit(0);
+      index >= 0;
+      index = indexes.nextSetBit(index + 1)
+    ) {
+      materialize(index);
+    }
+    boolean direct = subscription == null || !subscription.isThrottled();
+    if (direct) {
+      subscriptions.remove(client);
+    } else {
+      subscriptions.put(client, subscription);
+    }
+    // bank items out of filter are unsubscribed, if filter is changed.
+    forEachMaterialized(e -> {
+      if (indexes.get(e.index)) {
+        e.internalSubscribe(client, direct);
       } else {
-        primitiveEvents.forEach(e -> e.internalSubscribe(client));
+        e.internalUnsubscribe(client);
       }
+    });
+    if (clients.add(client)) {
+      subscriptionIndex.add(client, this);
       if (LOG.isTraceEnabled()) {
         LOG.trace(
           "[{}] event has been subscribed by {}.",
@@ -305,7 +523,8 @@ public class EventHolder extends MethodHolder implements RpcEvent {
       throw new RpcException(getError());
     }
     if (clients.remove(client)) {
-      syncSubscribedState();
+      subscriptionIndex.remove(client, this);
+      removeSubscriber(client);
       if (LOG.isTraceEnabled()) {
         LOG.trace(
           "[{}] event has been unsubscribed by {}.",
@@ -316,10 +535,15 @@ public class EventHolder extends MethodHolder implements RpcEvent {
     }
   }
 
+  /**
+   * clean up a client that has been disconnected.<br>
+   * The client should have been removed from subscription index.
+   * @param client
+   */
   void disconnect(WebSocket client) {
     boolean removed = clients.remove(client);
     if (removed) {
-      syncSubscribedState();
+      removeSubscriber(client);
       if (LOG.isTraceEnabled()) {
         LOG.trace(
           "subscriber of [{}] event has been disconnected. client:{}",
@@ -335,16 +559,13 @@ public class EventHolder extends MethodHolder implements RpcEvent {
    */
   @Override
   void clear() {
-    if (primitiveEvent != null) {
-      primitiveEvent.clear();
-    } else {
-      primitiveEvents.forEach(e -> e.clear());
-      primitiveEvents.clear();
-    }
-    if (bankIndexCombinations != null) {
-      bankIndexCombinations.clear();
-    }
+    forEachMaterialized(e -> e.clear());
+    Arrays.fill(primitiveEvents, null);
+    materialized.clear();
+    Arrays.fill(lastReportedParams, null);
+    hostTriggered.clear();
     clients.clear();
+    subscriptions.clear();
   }
 
   /**
@@ -357,6 +578,7 @@ public class EventHolder extends MethodHolder implements RpcEvent {
     report.put("event", absoluteName);
     if (bankDimension.length > 0) {
       report.put("bankDimension", bankDimension);
+      report.put("materialized", materialized.cardinality());
     }
     if (getError() != null) {
       report.put("error", getError());
@@ -364,16 +586,180 @@ public class EventHolder extends MethodHolder implements RpcEvent {
     return report;
   }
 
+  private void removeSubscriber(WebSocket client) {
+    subscriptions.remove(client);
+    forEachMaterialized(e -> e.internalUnsubscribe(client));
+  }
+
   /**
-   * Sync state of event subscription between RPC and Bitwig Studio.
-   * @return host side state will change to subscribed
+   * Returns the flat indexes of bank items that match the filter.
+   * @param subscription
+   * @return
    */
-  private void syncSubscribedState() {
-    if (primitiveEvent != null) {
-      primitiveEvent.syncSubscribedState();
-    } else {
-      primitiveEvents.forEach(e -> e.syncSubscribedState());
+  private BitSet indexesOf(EventSubscription subscription) {
+    BitSet indexes = new BitSet(size);
+    int[][] bank = subscription != null ? subscription.getBank() : null;
+    if (bank == null || bank.length == 0) {
+      indexes.set(0, size);
+      return indexes;
+    }
+    if (bank.length > bankDimension.length) {
+      throw new RpcException(
+        "Bank filter has too many dimensions, event has " +
+        bankDimension.length +
+        "."
+      );
+    }
+    // inclusive range of each dimension.
+    int[] from = new int[bankDimension.length];
+    int[] to = new int[bankDimension.length];
+    for (int i = 0; i < bankDimension.length; i++) {
+      int[] range = i < bank.length ? bank[i] : null;
+      if (range == null || range.length == 0) {
+        from[i] = 0;
+        to[i] = bankDimension[i] - 1;
+      } else {
+        from[i] = range[0];
+        to[i] = range.length > 1 ? range[1] : range[0];
+      }
+      if (from[i] < 0 || to[i] >= bankDimension[i] || from[i] > to[i]) {
+        throw new RpcException(
+          "Invalid bank range:" +
+          ArrayUtils.toString(range) +
+          " dimension:" +
+          i +
+          " size:" +
+          bankDimension[i]
+        );
+      }
+    }
+    addIndexes(indexes, from, to, 0, 0);
+    return indexes;
+  }
+
+  private void addIndexes(
+    BitSet indexes,
+    int[] from,
+    int[] to,
+    int dimension,
+    int base
+  ) {
+    base *= bankDimension[dimension];
+    if (dimension == bankDimension.length - 1) {
+      // the last dimension is contiguous.
+      indexes.set(base + from[dimension], base + to[dimension] + 1);
+      return;
+    }
+    for (int i = from[dimension]; i <= to[dimension]; i++) {
+      addIndexes(indexes, from, to, dimension + 1, base + i);
+    }
+  }
+
+  /**
+   * Register observers of all bank items.<br>
+   * Host accepts observers only during initialization, so observers are
+   * registered eagerly, but they only keep the last reported value until
+   * the primitive event is materialized.
+   */
+  @SuppressWarnings({ "UseSpecificCatch" })
+  private void registerObservers() {
+    for (int i = 0; i < size; i++) {
+      final int index = i;
+      try {
+        Value<?> value = (Value<?>) invoke(bankIndexesOf(index));
+        BitwigCallbacks.registerObserver(
+          value,
+          params -> onValueChanged(index, params)
+        );
+        // since API 10 counter based. unsubscribe called more times than subscribe
+        // value.unsubscribe();
+      } catch (Exception ex) {
+        setError(ex, "Failed registering observer.");
+        LOG.error(
+          "[" + absoluteName + "] event: Failed registering observer.",
+          ex
+        );
+      }
+    }
+  }
+
+  private void onValueChanged(int index, Object[] params) {
+    hostTriggered.set(index);
+    lastReportedParams[index] = params;
+    PrimitiveEvent e = primitiveEvents[index];
+    if (e != null) {
+      e.onValueChanged(params);
+    }
+  }
+
+  private PrimitiveEvent materialize(int index) {
+    PrimitiveEvent e = primitiveEvents[index];
+    if (e == null) {
+      e = new PrimitiveEvent(index);
+      primitiveEvents[index] = e;
+      materialized.set(index);
+    }
+    return e;
+  }
+
+  private void forEachMaterialized(Consumer<PrimitiveEvent> action) {
+    for (
+      int i = materialized.nextSetBit(0);
+      i >= 0;
+      i = materialized.nextSetBit(i + 1)
+    ) {
+      action.accept(primitiveEvents[i]);
+    }
+  }
+
+  /**
+   * Returns the bank indexes of specified flat index.
+   * @param index the flat index, the last dimension varies fastest.
+   * @return
+   */
+  private Object[] bankIndexesOf(int index) {
+    Object[] bankIndexes = new Object[bankDimension.length];
+    for (int i = bankDimension.length - 1; i >= 0; i--) {
+      bankIndexes[i] = index % bankDimension[i];
+      index /= bankDimension[i];
     }
+    return bankIndexes;
+  }
+
+  /**
+   * Returns numeric view of notified value.
+   * @return NaN if value is not numeric.
+   */
+  private static double numericOf(Object value) {
+    if (value instanceof Number) {
+      return ((Number) value).doubleValue();
+    }
+    if (value instanceof BeatTime) {
+      return ((BeatTime) value).getRaw();
+    }
+    return Double.NaN;
+  }
+
+  private static boolean isWithinDelta(
+    Object[] sent,
+    Object[] params,
+    double minDelta
+  ) {
+    if (sent.length != params.length) {
+      return false;
+    }
+    for (int i = 0; i < params.length; i++) {
+      double a = numericOf(sent[i]);
+      double b = numericOf(params[i]);
+      if (Double.isNaN(a) || Double.isNaN(b)) {
+        if (!Objects.equals(sent[i], params[i])) {
+          return false;
+        }
+      } else if (Math.abs(a - b) >= minDelta) {
+        return false;
+      }
+    }
+    return true;
   }
 
   private String client(WebSocket client) {
@@ -393,23 +779,11 @@ public class EventHolder extends MethodHolder implements RpcEvent {
     return sb.toString();
   }
 
-  private static List<int[]> createBankIndexCombinations(int[] bankDimension) {
-    List<int[]> combinations = new ArrayList<>();
-    for (int size : bankDimension) {
-      List<int[]> newCombinations = new ArrayList<>();
-      for (int element = 0; element < size; element++) {
-        if (combinations.isEmpty()) {
-          int[] combination = { element };
-          newCombinations.add(combination);
-        } else {
-          for (int[] combination : combinations) {
-            int[] newCombination = ArrayUtils.add(combination, element);
-            newCombinations.add(newCombination);
-          }
-        }
-      }
-      combinations = newCombinations;
+  private static int sizeOf(int[] bankDimension) {
+    int size = 1;
+    for (int count : bankDimension) {
+      size *= count;
     }
-    return combinations;
+    return size;
   }
 }
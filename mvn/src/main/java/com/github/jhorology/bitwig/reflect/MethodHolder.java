@@ -26,14 +26,15 @@ import com.github.jhorology.bitwig.Config;
 import com.github.jhorology.bitwig.ext.ExtApiFactory;
 import com.github.jhorology.bitwig.rpc.RpcMethod;
 import com.github.jhorology.bitwig.rpc.RpcParamType;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -45,15 +46,53 @@ import org.apache.commons.lang3.StringUtils;
  */
 class MethodHolder extends RegistryNode implements RpcMethod {
 
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+  // (Object[] params, int index)Object
+  private static final MethodHandle ELEMENT_GETTER =
+    MethodHandles.arrayElementGetter(Object[].class);
+  // (Object[] params, int from)Object
+  private static final MethodHandle VARARGS_GETTER;
+  // (MethodHolder this, Object[] params)Object
+  private static final MethodHandle INVOKE_CACHED;
+  // (Object[] params)Object
+  private static final MethodType INVOKER_TYPE = MethodType.methodType(
+    Object.class,
+    Object[].class
+  );
+
+  static {
+    try {
+      VARARGS_GETTER =
+        LOOKUP
+          .findStatic(
+            MethodHolder.class,
+            "varargsOf",
+            MethodType.methodType(Object[].class, Object[].class, int.class)
+          )
+          .asType(
+            MethodType.methodType(Object.class, Object[].class, int.class)
+          );
+      INVOKE_CACHED =
+        LOOKUP.findVirtual(MethodHolder.class, "invokeCached", INVOKER_TYPE);
+    } catch (NoSuchMethodException | IllegalAccessException ex) {
+      throw new ExceptionInInitializerError(ex);
+    }
+  }
+
   protected final Method method;
   private final Type[] paramTypes;
   private final Type[] methodParamTypes;
   private final boolean staticMethod;
   private final boolean varargs;
   private final boolean cacheable;
+  private final RpcParamType[] rpcParamTypes;
   private final MethodIdentifier identifier;
   private String error;
-  private Map<List<Object>, Object> resultCache;
+  private Object[] resultCache;
+  // (Object[] params)Object, params are whole parameters of method chain.
+  private MethodHandle invoker;
+  // the invoker for child nodes.
+  private MethodHandle chainInvoker;
 
   /**
    * Constructor.
@@ -89,8 +128,12 @@ class MethodHolder extends RegistryNode implements RpcMethod {
     this.cacheable =
       (paramTypes.length == bankDimension.length) &&
       (ReflectUtils.isBitwigAPI(nodeType) || ReflectUtils.isExtAPI(nodeType));
-    this.identifier =
-      new MethodIdentifier(absoluteName, RpcParamType.of(paramTypes, true)); // true = allow any type
+    this.rpcParamTypes = RpcParamType.of(paramTypes, true); // true = allow any type
+    this.identifier = new MethodIdentifier(absoluteName, rpcParamTypes);
+    if (cacheable) {
+      this.resultCache = new Object[cacheSizeOf(bankDimension)];
+    }
+    bindInvoker();
   }
 
   /**
@@ -120,67 +163,23 @@ class MethodHolder extends RegistryNode implements RpcMethod {
    * @params parameter(s) for invoking method.
    */
   @Override
-  @SuppressWarnings({ "UseSpecificCatch" })
   public Object invoke(Object[] params) throws Exception {
     if (params == null) {
       params = ReflectUtils.EMPTY_ARRAY;
     }
-    Object result;
-    if (cacheable && resultCache != null) {
-      result = resultCache.get(Arrays.asList(params));
-      if (result != null) {
-        return result;
-      }
+    if (invoker == null) {
+      throw new IllegalStateException(error);
     }
     try {
-      //  foobar1(a).foobar2(b).foobar3(c, d);
-      //  rpc params:[a,b,c,d]
-      //  reduce [a,b,c,d] -> [c,d]
-      int split = (parentNode instanceof MethodHolder)
-        ? ((MethodHolder) parentNode).paramTypes.length
-        : 0;
-      Object[] methodParams = ArrayUtils.subarray(params, split, params.length);
-      if (staticMethod) {
-        result = invokeStaticMethod(methodParams);
-      } else if (parentNode instanceof ModuleHolder) {
-        result =
-          invoke(((ModuleHolder) parentNode).getModuleInstance(), methodParams);
-      } else if (parentNode instanceof MethodHolder) {
-        //  foobar1(a).foobar2(b).foobar3(c, d);
-        //  rpc params:[a,b,c,d]
-        //  reduce [a,b,c,d] -> [a,b]
-        Object[] parentParams = ArrayUtils.subarray(params, 0, split);
-        result =
-          invoke(
-            ((MethodHolder) parentNode).invoke(parentParams),
-            methodParams
-          );
-      } else {
-        throw new IllegalStateException();
-      }
-      if (cacheable) {
-        if (result != null) {
-          result = ExtApiFactory.newMixinInstance(config, nodeType, result);
-        }
-        if (resultCache == null) {
-          resultCache = new HashMap<>();
-        }
-        resultCache.put(Arrays.asList(params), result);
-      }
-      return result;
+      return cacheable
+        ? invokeCached(params)
+        : (Object) invoker.invokeExact(params);
     } catch (Exception ex) {
-      StringBuilder msg = new StringBuilder("Faild invoking method.");
-      Exception err = ex;
-      if (ex instanceof InvocationTargetException) {
-        Throwable cause = ex.getCause();
-        if (cause != null && cause instanceof Exception) {
-          err = (Exception) cause;
-          msg.append(" caused by:");
-          msg.append(cause.getMessage());
-        }
-      }
-      setError(err, msg.toString());
-      throw err;
+      setError(ex, "Faild invoking method.");
+      throw ex;
+    } catch (Throwable ex) {
+      setError(ex, "Faild invoking method.");
+      throw new InvocationTargetException(ex);
     }
   }
 
@@ -190,7 +189,7 @@ class MethodHolder extends RegistryNode implements RpcMethod {
   @Override
   void clear() {
     if (cacheable && resultCache != null) {
-      resultCache.clear();
+      Arrays.fill(resultCache, null);
     }
   }
 
@@ -202,6 +201,14 @@ class MethodHolder extends RegistryNode implements RpcMethod {
     return identifier;
   }
 
+  /**
+   * Return the RPC parameter types of this method.
+   * @return
+   */
+  RpcParamType[] getRpcParamTypes() {
+    return rpcParamTypes;
+  }
+
   /**
    * Retunrs an error message.
    * @return
@@ -282,18 +289,139 @@ class MethodHolder extends RegistryNode implements RpcMethod {
     return sb.toString();
   }
 
-  private Object invoke(Object target, Object[] params)
-    throws IllegalAccessException, IllegalArgumentException, IllegalArgumentException, InvocationTargetException {
-    return varargs
-      ? method.invoke(target, new Object[] { params })
-      : method.invoke(target, params);
+  /**
+   * Returns an invoker for child nodes.
+   * @return (Object[] params)Object
+   */
+  MethodHandle getChainInvoker() {
+    return chainInvoker;
+  }
+
+  /**
+   * Bind a pre-compiled invoker of this method chain.<br>
+   * <pre>
+   *  below case:
+   *    foobar1(a).foobar2(b).foobar3(c, d);
+   *    rpc params:[a,b,c,d]
+   *  foobar3 is invoked as:
+   *    foobar3(foobar2Invoker(params), params[2], params[3])
+   * </pre>
+   * The parameters are never copied for each node of chain.
+   */
+  private void bindInvoker() {
+    MethodHandle parentInvoker = null;
+    if (parentNode instanceof MethodHolder) {
+      parentInvoker = ((MethodHolder) parentNode).getChainInvoker();
+      if (parentInvoker == null) {
+        this.error = ((MethodHolder) parentNode).getError();
+        return;
+      }
+    }
+    try {
+      // (target, methodParams...)Object or static (methodParams...)Object
+      MethodHandle mh = LOOKUP.unreflect(method).asFixedArity();
+      mh =
+        mh.asType(MethodType.genericMethodType(mh.type().parameterCount()));
+      if (parentNode instanceof ModuleHolder && !staticMethod) {
+        mh = mh.bindTo(((ModuleHolder) parentNode).getModuleInstance());
+      }
+      // replace each arguments with (Object[] params)Object
+      int split = paramTypes.length - methodParamTypes.length;
+      MethodHandle[] filters = new MethodHandle[mh.type().parameterCount()];
+      int pos = 0;
+      if (parentInvoker != null && !staticMethod) {
+        filters[pos++] = parentInvoker;
+      }
+      if (varargs) {
+        filters[pos++] =
+          MethodHandles.insertArguments(VARARGS_GETTER, 1, split);
+      } else {
+        for (int i = split; i < paramTypes.length; i++) {
+          filters[pos++] =
+            MethodHandles.insertArguments(ELEMENT_GETTER, 1, i);
+        }
+      }
+      if (filters.length == 0) {
+        mh = MethodHandles.dropArguments(mh, 0, Object[].class);
+      } else {
+        mh = MethodHandles.filterArguments(mh, 0, filters);
+        // (Object[] params, Object[] params, ...)Object -> (Object[] params)Object
+        mh =
+          MethodHandles.permuteArguments(
+            mh,
+            INVOKER_TYPE,
+            new int[filters.length]
+          );
+      }
+      this.invoker = mh;
+      this.chainInvoker = cacheable ? INVOKE_CACHED.bindTo(this) : mh;
+    } catch (IllegalAccessException | RuntimeException ex) {
+      setError(ex, "Failed binding method.");
+    }
+  }
+
+  /**
+   * Invoke the method with using result cache.<br>
+   * the result of bank item is cached, because it's always same instance.
+   * @param params
+   * @return
+   * @throws Throwable
+   */
+  Object invokeCached(Object[] params) throws Throwable {
+    int index = cacheIndexOf(params);
+    Object result;
+    if (index >= 0) {
+      result = resultCache[index];
+      if (result != null) {
+        return result;
+      }
+    }
+    result = (Object) invoker.invokeExact(params);
+    if (result != null) {
+      result = ExtApiFactory.newMixinInstance(config, nodeType, result);
+    }
+    if (index >= 0) {
+      resultCache[index] = result;
+    }
+    return result;
+  }
+
+  /**
+   * Returns a index of result cache.
+   * @param params bank indexes.
+   * @return -1 if params are out of bank range.
+   */
+  private int cacheIndexOf(Object[] params) {
+    if (params.length < bankDimension.length) {
+      return -1;
+    }
+    int index = 0;
+    for (int i = 0; i < bankDimension.length; i++) {
+      if (!(params[i] instanceof Integer)) {
+        return -1;
+      }
+      int bankIndex = (Integer) params[i];
+      if (bankIndex < 0 || bankIndex >= bankDimension[i]) {
+        return -1;
+      }
+      index = index * bankDimension[i] + bankIndex;
+    }
+    return index;
+  }
+
+  private static int cacheSizeOf(int[] bankDimension) {
+    int size = 1;
+    for (int count : bankDimension) {
+      size *= count;
+    }
+    return size;
   }
 
-  private Object invokeStaticMethod(Object[] params)
-    throws IllegalAccessException, IllegalArgumentException, IllegalArgumentException, InvocationTargetException {
-    return varargs
-      ? method.invoke(null, new Object[] { params })
-      : method.invoke(null, params);
+  // varargs method takes all rest of parameters.
+  private static Object[] varargsOf(Object[] params, int from) {
+    return from == 0
+      ? params
+      : ArrayUtils.subarray(params, from, params.length);
   }
 
   /**
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.reflect;
+
+import com.github.jhorology.bitwig.rpc.RpcParamType;
+import com.github.jhorology.bitwig.rpc.RpcSignature;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A lookup table of RPC methods.<br>
+ * Methods are indexed by name, each name holds signatures that are packed into long value.
+ * Lookup doesn't allocate any objects, varargs method is also found in same probe.
+ * Lookup is thread-safe, a rebuilt table is published as a new map.
+ */
+class MethodTable {
+
+  private static final Entry[] EMPTY_ENTRIES = {};
+
+  private volatile Map<String, Entry[]> entries;
+
+  /**
+   * A signature entry of method.
+   */
+  private static class Entry {
+
+    private final MethodHolder method;
+    private final RpcParamType[] types;
+    private final boolean packed;
+    private final int arity;
+    private final long signature;
+    // positions of ANY or ANY_ARRAY
+    private long anyMask;
+    // positions of ANY_ARRAY, requested type should be an array.
+    private long anyArrayBits;
+    // positions of ANY, requested type should not be an array.
+    private long anyScalarBits;
+
+    private Entry(MethodHolder method) {
+      this.method = method;
+      this.types = method.getRpcParamTypes();
+      this.arity = types.length;
+      this.signature = RpcSignature.of(types);
+      this.packed = signature != RpcSignature.UNPACKABLE;
+      if (packed) {
+        for (int i = 0; i < arity; i++) {
+          if (types[i] == RpcParamType.ANY) {
+            anyMask |= RpcSignature.maskAt(i);
+            anyScalarBits |= RpcSignature.arrayBitAt(i);
+          } else if (types[i] == RpcParamType.ANY_ARRAY) {
+            anyMask |= RpcSignature.maskAt(i);
+            anyArrayBits |= RpcSignature.arrayBitAt(i);
+          }
+        }
+      }
+    }
+
+    private boolean matches(long requested, int requestedArity) {
+      return (
+        packed &&
+        arity == requestedArity &&
+        ((requested ^ signature) & ~anyMask) == 0 &&
+        (requested & anyArrayBits) == anyArrayBits &&
+        (requested & anyScalarBits) == 0
+      );
+    }
+
+    private boolean matches(RpcParamType[] requested) {
+      if (arity != requested.length) {
+        return false;
+      }
+      for (int i = 0; i < arity; i++) {
+        if (!types[i].equals(requested[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Constructor.
+   */
+  MethodTable() {
+    entries = new HashMap<>();
+  }
+
+  /**
+   * Build this table from registered methods.
+   * @param methods
+   */
+  void build(Collection<MethodHolder> methods) {
+    Map<String, List<Entry>> map = new HashMap<>();
+    // keep registration order
+    methods.forEach(m ->
+      map
+        .computeIfAbsent(m.getAbsoluteName(), k -> new ArrayList<>())
+        .add(new Entry(m))
+    );
+    Map<String, Entry[]> table = new HashMap<>(map.size() * 2);
+    map.forEach((name, list) -> table.put(name, list.toArray(EMPTY_ENTRIES)));
+    entries = table;
+  }
+
+  /**
+   * Clear this table.
+   */
+  void clear() {
+    entries = new HashMap<>();
+  }
+
+  /**
+   * Lookup a method.
+   * @param name the method name.
+   * @param signature the parameter types that is packed by {@link RpcSignature}.
+   * @return null if not found.
+   */
+  MethodHolder lookup(String name, long signature) {
+    if (signature == RpcSignature.UNPACKABLE) {
+      return null;
+    }
+    Entry[] candidates = entries.get(name);
+    if (candidates == null) {
+      return null;
+    }
+    int arity = RpcSignature.arity(signature);
+    long varargs = RpcSignature.toVarargs(signature);
+    MethodHolder varargsMethod = null;
+    for (Entry e : candidates) {
+      if (e.matches(signature, arity)) {
+        return e.method;
+      }
+      if (
+        varargsMethod == null &&
+        varargs != RpcSignature.UNPACKABLE &&
+        e.matches(varargs, 1)
+      ) {
+        varargsMethod = e.method;
+      }
+    }
+    return varargsMethod;
+  }
+
+  /**
+   * Lookup a method.
+   * @param name the method name.
+   * @param paramTypes the parameter types.
+   * @return null if not found.
+   */
+  MethodHolder lookup(String name, RpcParamType[] paramTypes) {
+    long signature = RpcSignature.of(paramTypes);
+    if (signature != RpcSignature.UNPACKABLE) {
+      return lookup(name, signature);
+    }
+    // too many parameters to pack
+    Entry[] candidates = entries.get(name);
+    if (candidates == null) {
+      return null;
+    }
+    for (Entry e : candidates) {
+      if (e.matches(paramTypes)) {
+        return e.method;
+      }
+    }
+    RpcParamType[] varargsTypes = ReflectUtils.toVarargs(paramTypes);
+    return varargsTypes != null ? lookup(name, varargsTypes) : null;
+  }
+}
@@ -97,7 +97,15 @@ public class ReflectionRegistry implements RpcRegistry {
   // server sent evnt bus.
   private final List<ModuleHolder> modules;
   private final Map<MethodIdentifier, MethodHolder> methods;
+  private final MethodTable methodTable;
   private final Map<String, EventHolder> events;
+  // leaf methods that will be registered on demand.
+  private final Map<ModuleHolder, List<PendingMethod>> pendingMethods;
+  // the name index of pending methods.
+  private final Map<String, ModuleHolder> pendingNames;
+  private final SubscriptionIndex subscriptionIndex;
+  // entries of module that is being reflected.
+  private List<RegistryCache.Entry> recording;
 
   private final Config config;
   private final ProtocolHandler protocol;
@@ -115,7 +123,31 @@ public class ReflectionRegistry implements RpcRegistry {
     this.protocol = protocol;
     modules = new ArrayList<>();
     methods = new LinkedHashMap<>(512);
+    methodTable = new MethodTable();
     events = new LinkedHashMap<>(256);
+    pendingMethods = new LinkedHashMap<>();
+    pendingNames = new LinkedHashMap<>(512);
+    subscriptionIndex = new SubscriptionIndex();
+  }
+
+  /**
+   * A leaf method that is registered at first request.
+   */
+  private static class PendingMethod {
+
+    private final Method method;
+    private final RegistryNode parentNode;
+    private final int chainDepth;
+
+    private PendingMethod(
+      Method method,
+      RegistryNode parentNode,
+      int chainDepth
+    ) {
+      this.method = method;
+      this.parentNode = parentNode;
+      this.chainDepth = chainDepth;
+    }
   }
 
   // TODO Guava 19 or above EventBus is able to register non-public @﻿Subscribe
@@ -491,8 +523,36 @@ public class ReflectionRegistry implements RpcRegistry {
       );
     }
     //
-    modules.forEach(m -> registerMethods(m));
+    RegistryCache cache = new RegistryCache(
+      e.getExtension().getRcFilePath(".registry"),
+      cacheKey()
+    );
+    boolean cached = cache.load();
+    for (ModuleHolder module : modules) {
+      List<RegistryCache.Entry> entries = cached ? cache.get(module) : null;
+      if (entries != null) {
+        restoreMethods(module, entries);
+      } else {
+        recording = cache.record(module);
+        try {
+          registerMethods(module, config.isLazyRegistry());
+        } finally {
+          recording = null;
+        }
+      }
+    }
+    cache.save();
+    cache.clear();
+    methodTable.build(methods.values());
     protocol.setRpcRegistry(this);
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(
+        "registered methods:{} events:{} pending methods:{}",
+        methods.size(),
+        events.size(),
+        pendingNames.size()
+      );
+    }
   }
 
   @Subscribe
@@ -500,27 +560,50 @@ public class ReflectionRegistry implements RpcRegistry {
     protocol.setRpcRegistry(null);
     modules.forEach(ModuleHolder::clear);
     modules.clear();
-    methods.values().forEach(MethodHolder::clear);
-    methods.clear();
+    synchronized (this) {
+      methods.values().forEach(MethodHolder::clear);
+      methods.clear();
+      methodTable.clear();
+      pendingMethods.clear();
+      pendingNames.clear();
+    }
     events.values().forEach(EventHolder::clear);
     events.clear();
+    subscriptionIndex.clear();
   }
 
   /**
-   * Get an interface for RPC method model.
+   * Get an interface for RPC method model.<br>
+   * This method is thread-safe.
    * @param name the method name.
    * @param paramTypes the parameter types
    * @return
    */
   @Override
   public RpcMethod getRpcMethod(String name, RpcParamType[] paramTypes) {
-    RpcMethod method = methods.get(new MethodIdentifier(name, paramTypes));
-    // try matching varargs
+    MethodHolder method = methodTable.lookup(name, paramTypes);
     if (method == null) {
-      RpcParamType[] varargsTypes = ReflectUtils.toVarargs(paramTypes);
-      if (varargsTypes != null) {
-        method = methods.get(new MethodIdentifier(name, varargsTypes));
-      }
+      // lookup again even if resolved by other thread.
+      resolve(name);
+      method = methodTable.lookup(name, paramTypes);
+    }
+    return method;
+  }
+
+  /**
+   * Get an interface for RPC method model.<br>
+   * This method is thread-safe.
+   * @param name the method name.
+   * @param signature the parameter types that is packed by RpcSignature.
+   * @return
+   */
+  @Override
+  public RpcMethod getRpcMethod(String name, long signature) {
+    MethodHolder method = methodTable.lookup(name, signature);
+    if (method == null) {
+      // lookup again even if resolved by other thread.
+      resolve(name);
+      method = methodTable.lookup(name, signature);
     }
     return method;
   }
@@ -541,7 +624,7 @@ public class ReflectionRegistry implements RpcRegistry {
    */
   @Override
   public void disconnect(WebSocket client) {
-    events.values().forEach(e -> e.disconnect(client));
+    subscriptionIndex.remove(client).forEach(e -> e.disconnect(client));
   }
 
   /**
@@ -667,12 +750,21 @@ public class ReflectionRegistry implements RpcRegistry {
   /**
    * @return
    */
-  private Object reportMethods() {
+  private synchronized Object reportMethods() {
     List<Object> list = methods
       .values()
       .stream()
       .map(m -> m.reportRpcMethod())
-      .collect(Collectors.toList());
+      .collect(Collectors.toCollection(ArrayList::new));
+    // pending methods are reported by name only.
+    pendingNames
+      .keySet()
+      .forEach(name -> {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("method", name);
+        report.put("resolved", false);
+        list.add(report);
+      });
     return list;
   }
 
@@ -690,17 +782,152 @@ public class ReflectionRegistry implements RpcRegistry {
     return list;
   }
 
-  private void registerMethods(ModuleHolder module) {
+  private void registerMethods(ModuleHolder module, boolean lazy) {
     module
       .getMethodStream(protocol)
-      .forEach(m -> registerMethod(module, m, module, 0));
+      .forEach(m -> registerMethod(module, m, module, -1, 0, lazy));
   }
 
-  private void registerMethod(
+  /**
+   * Register methods of the module from recorded entries of cache.<br>
+   * Reflection and filtering of API are skipped, only holders are re-bound.
+   * @param module
+   * @param entries
+   */
+  private void restoreMethods(
+    ModuleHolder module,
+    List<RegistryCache.Entry> entries
+  ) {
+    RegistryNode[] nodes = new RegistryNode[entries.size()];
+    int[] chainDepths = new int[entries.size()];
+    for (int i = 0; i < nodes.length; i++) {
+      RegistryCache.Entry e = entries.get(i);
+      RegistryNode parentNode = e.parent < 0 ? module : nodes[e.parent];
+      chainDepths[i] = e.parent < 0 ? 0 : chainDepths[e.parent] + 1;
+      if (e.is(RegistryCache.PENDING)) {
+        deferMethod(module, e.method, parentNode, chainDepths[i]);
+        continue;
+      }
+      MethodHolder mh = newHolder(
+        e.method,
+        e.returnType,
+        parentNode,
+        e.bankItemCount,
+        e.is(RegistryCache.EVENT)
+      );
+      if (e.is(RegistryCache.METHOD)) {
+        methods.put(mh.getIdentifier(), mh);
+      }
+      if (e.is(RegistryCache.EVENT)) {
+        events.put(mh.getAbsoluteName(), (EventHolder) mh);
+      }
+      nodes[i] = mh;
+    }
+  }
+
+  /**
+   * Returns a key of registry cache.<br>
+   * The result of reflection depends on API, protocol and the settings that
+   * change methods of all modules. The settings of each module (e.g. bank
+   * sizes) are keyed by {@link RegistryCache} per module, other settings
+   * (e.g. port) don't affect the cache.
+   * @return
+   */
+  private String cacheKey() {
+    return String.join(
+      "\n",
+      definition.getId().toString(),
+      definition.getVersion(),
+      host.getHostVersion(),
+      String.valueOf(host.getHostApiVersion()),
+      config.getRpcProtocol().name(),
+      String.valueOf(config.isLazyRegistry()),
+      // extended APIs are mixed into the nodes of modules.
+      String.valueOf(config.useCursorDeviceDirectParameter()),
+      config.getVuMeterUsedFor().name()
+    );
+  }
+
+  /**
+   * Record a reflected node to registry cache.
+   * @return the index of entry, or -1 if not recording.
+   */
+  private int record(
+    int parentIndex,
+    Method method,
+    Class<?> returnType,
+    int bankItemCount,
+    int flags
+  ) {
+    if (recording == null) {
+      return -1;
+    }
+    recording.add(
+      new RegistryCache.Entry(
+        parentIndex,
+        method,
+        returnType,
+        bankItemCount,
+        flags
+      )
+    );
+    return recording.size() - 1;
+  }
+
+  /**
+   * Register all pending methods of the module that owns specified method.<br>
+   * Events are never pending, 'cause observers of host can only be
+   * registered during initialization.<br>
+   * Requests are decoded by WebSocket worker threads, so this method is
+   * serialized with the other modifications of methods.
+   * @param name the absolute name of method.
+   * @return true if any methods have been registered.
+   */
+  private synchronized boolean resolve(String name) {
+    ModuleHolder module = pendingNames.get(name);
+    if (module == null) {
+      return false;
+    }
+    List<PendingMethod> pending = pendingMethods.remove(module);
+    pendingNames.values().removeIf(m -> m == module);
+    if (pending != null) {
+      pending.forEach(p ->
+        registerMethod(module, p.method, p.parentNode, -1, p.chainDepth, false)
+      );
+    }
+    methodTable.build(methods.values());
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(
+        "module[{}] pending methods:{} have been registered.",
+        module.getAbsoluteName(),
+        pending != null ? pending.size() : 0
+      );
+    }
+    return true;
+  }
+
+  private void deferMethod(
     ModuleHolder module,
     Method method,
     RegistryNode parentNode,
     int chainDepth
+  ) {
+    pendingMethods
+      .computeIfAbsent(module, k -> new ArrayList<>())
+      .add(new PendingMethod(method, parentNode, chainDepth));
+    pendingNames.put(
+      parentNode.getAbsoluteName() + NODE_DELIMITER + method.getName(),
+      module
+    );
+  }
+
+  private void registerMethod(
+    ModuleHolder module,
+    Method method,
+    RegistryNode parentNode,
+    int parentIndex,
+    int chainDepth,
+    boolean lazy
   ) {
     // filter unusable methods
     Class<?> returnType = method.getReturnType();
@@ -713,6 +940,17 @@ public class ReflectionRegistry implements RpcRegistry {
       return;
     }
 
+    if (
+      lazy &&
+      !ReflectUtils.isBitwigAPI(returnType) &&
+      !ReflectUtils.isExtAPI(returnType)
+    ) {
+      // leaf method never has child nodes and events.
+      deferMethod(module, method, parentNode, chainDepth);
+      record(parentIndex, method, returnType, 0, RegistryCache.PENDING);
+      return;
+    }
+
     if (
       ReflectUtils.isBank(returnType) &&
       module.getBankItemCount(returnType) == 0
@@ -777,22 +1015,20 @@ public class ReflectionRegistry implements RpcRegistry {
     // shoud use Parameter#Value() as event.
     boolean isEvent = isReturnTypeBitwigValue && !isReturnTypeBitwigParameter;
 
-    MethodHolder mh = isEvent
-      ? new EventHolder(
-        config,
-        method,
-        returnType,
-        parentNode,
-        bankItemCount,
-        host,
-        protocol.getPushModel()
-      )
-      : new MethodHolder(config, method, returnType, parentNode, bankItemCount);
+    MethodHolder mh = newHolder(
+      method,
+      returnType,
+      parentNode,
+      bankItemCount,
+      isEvent
+    );
+    int flags = isEvent ? RegistryCache.EVENT : 0;
 
     if (
       !isReturnTypeBitwigAPI ||
       (isReturnTypeBitwigAPI && protocol.isSerializableBitwigType(returnType))
     ) {
+      flags |= RegistryCache.METHOD;
       // for debug
       if (LOG.isWarnEnabled()) {
         MethodHolder duplicatedMethod = methods.get(mh.getIdentifier());
@@ -822,14 +1058,38 @@ public class ReflectionRegistry implements RpcRegistry {
       }
       events.put(mh.getAbsoluteName(), (EventHolder) mh);
     }
+    int index = record(parentIndex, method, returnType, bankItemCount, flags);
     if (isReturnTypeBitwigAPI && !returnType.isEnum()) {
       // register method recursively
       mh
         .getMethodStream(protocol)
-        .forEach(m -> registerMethod(module, m, mh, chainDepth + 1));
+        .forEach(m ->
+          registerMethod(module, m, mh, index, chainDepth + 1, lazy)
+        );
     }
   }
 
+  private MethodHolder newHolder(
+    Method method,
+    Class<?> returnType,
+    RegistryNode parentNode,
+    int bankItemCount,
+    boolean isEvent
+  ) {
+    return isEvent
+      ? new EventHolder(
+        config,
+        method,
+        returnType,
+        parentNode,
+        bankItemCount,
+        host,
+        protocol.getPushModel(),
+        subscriptionIndex
+      )
+      : new MethodHolder(config, method, returnType, parentNode, bankItemCount);
+  }
+
   private boolean isInfiniteLoopChain(
     RegistryNode parentNode,
     Class<?> returnType
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.reflect;
+
+import com.github.jhorology.bitwig.logging.LoggerFactory;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.commons.lang3.ClassUtils;
+import org.slf4j.Logger;
+
+/**
+ * A persistent cache of reflected method chains for each module.<br>
+ * The cache is keyed by API version and the settings that affect all modules,
+ * it's discarded if the key doesn't match or any of recorded methods can't be
+ * resolved. Each module is keyed by its name and bank item counts, so that
+ * the modules whose settings have not changed are restored.
+ */
+class RegistryCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(
+    RegistryCache.class
+  );
+
+  private static final int MAGIC = 0x42575252; // "BWRR"
+  private static final int FORMAT_VERSION = 1;
+
+  /**
+   * the node is registered as a RPC method.
+   */
+  static final int METHOD = 1;
+
+  /**
+   * the node is registered as a RPC event.
+   */
+  static final int EVENT = 2;
+
+  /**
+   * the node is a pending leaf method.
+   */
+  static final int PENDING = 4;
+
+  private final Path file;
+  private final String key;
+  private final Map<String, List<Entry>> modules;
+  private boolean dirty;
+
+  /**
+   * A recorded node of method chain.
+   */
+  static class Entry {
+
+    // index of parent entry, or -1 if parent is module.
+    final int parent;
+    final Method method;
+    final Class<?> returnType;
+    final int bankItemCount;
+    final int flags;
+
+    Entry(
+      int parent,
+      Method method,
+      Class<?> returnType,
+      int bankItemCount,
+      int flags
+    ) {
+      this.parent = parent;
+      this.method = method;
+      this.returnType = returnType;
+      this.bankItemCount = bankItemCount;
+      this.flags = flags;
+    }
+
+    boolean is(int flag) {
+      return (flags & flag) != 0;
+    }
+  }
+
+  /**
+   * Constructor.
+   * @param file the path of cache file.
+   * @param key the key for validation of cache.
+   */
+  RegistryCache(Path file, String key) {
+    this.file = file;
+    this.key = key;
+    this.modules = new LinkedHashMap<>();
+  }
+
+  /**
+   * Returns recorded entries of the module.
+   * @param module
+   * @return null if the module is not recorded.
+   */
+  List<Entry> get(ModuleHolder module) {
+    return modules.get(moduleKey(module));
+  }
+
+  /**
+   * Starts recording entries of the module.
+   * @param module
+   * @return a list to which entries are added.
+   */
+  List<Entry> record(ModuleHolder module) {
+    List<Entry> entries = new ArrayList<>();
+    // entries of previous settings are no longer needed.
+    String name = moduleName(module);
+    modules.keySet().removeIf(k -> k.startsWith(name));
+    modules.put(moduleKey(module), entries);
+    dirty = true;
+    return entries;
+  }
+
+  /**
+   * Load the cache file.
+   * @return false if cache file doesn't exist or isn't valid.
+   */
+  boolean load() {
+    modules.clear();
+    if (!Files.isReadable(file)) {
+      return false;
+    }
+    try (
+      DataInputStream in = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(file))
+      )
+    ) {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+        return false;
+      }
+      byte[] keyBytes = new byte[in.readInt()];
+      in.readFully(keyBytes);
+      if (!key.equals(new String(keyBytes, StandardCharsets.UTF_8))) {
+        LOG.debug("registry cache is outdated.");
+        return false;
+      }
+      String[] strings = new String[in.readInt()];
+      for (int i = 0; i < strings.length; i++) {
+        strings[i] = in.readUTF();
+      }
+      Resolver resolver = new Resolver(strings);
+      int moduleCount = in.readInt();
+      for (int i = 0; i < moduleCount; i++) {
+        String moduleKey = strings[in.readInt()];
+        Entry[] entries = new Entry[in.readInt()];
+        for (int j = 0; j < entries.length; j++) {
+          int parent = in.readInt();
+          Class<?> declaringClass = resolver.classAt(in.readInt());
+          String methodName = strings[in.readInt()];
+          Class<?>[] paramTypes = new Class<?>[in.readInt()];
+          for (int k = 0; k < paramTypes.length; k++) {
+            paramTypes[k] = resolver.classAt(in.readInt());
+          }
+          Class<?> returnType = resolver.classAt(in.readInt());
+          int bankItemCount = in.readInt();
+          int flags = in.readByte();
+          entries[j] =
+            new Entry(
+              parent,
+              resolver.method(declaringClass, methodName, paramTypes),
+              returnType,
+              bankItemCount,
+              flags
+            );
+        }
+        modules.put(moduleKey, new ArrayList<>(Arrays.asList(entries)));
+      }
+      dirty = false;
+      return true;
+    } catch (IOException | ReflectiveOperationException | RuntimeException ex) {
+      LOG.warn("Failed loading registry cache, it will be rebuilt.", ex);
+      modules.clear();
+      return false;
+    }
+  }
+
+  /**
+   * Save the cache file if any modules have been recorded.
+   */
+  void save() {
+    if (!dirty) {
+      return;
+    }
+    Map<String, Integer> strings = new LinkedHashMap<>();
+    modules.forEach((moduleKey, entries) -> {
+      intern(strings, moduleKey);
+      entries.forEach(e -> {
+        intern(strings, e.method.getDeclaringClass().getName());
+        intern(strings, e.method.getName());
+        for (Class<?> t : e.method.getParameterTypes()) {
+          intern(strings, t.getName());
+        }
+        intern(strings, e.returnType.getName());
+      });
+    });
+    try (
+      DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(file))
+      )
+    ) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(keyBytes.length);
+      out.write(keyBytes);
+      out.writeInt(strings.size());
+      for (String s : strings.keySet()) {
+        out.writeUTF(s);
+      }
+      out.writeInt(modules.size());
+      for (Map.Entry<String, List<Entry>> module : modules.entrySet()) {
+        out.writeInt(strings.get(module.getKey()));
+        out.writeInt(module.getValue().size());
+        for (Entry e : module.getValue()) {
+          out.writeInt(e.parent);
+          out.writeInt(strings.get(e.method.getDeclaringClass().getName()));
+          out.writeInt(strings.get(e.method.getName()));
+          Class<?>[] paramTypes = e.method.getParameterTypes();
+          out.writeInt(paramTypes.length);
+          for (Class<?> t : paramTypes) {
+            out.writeInt(strings.get(t.getName()));
+          }
+          out.writeInt(strings.get(e.returnType.getName()));
+          out.writeInt(e.bankItemCount);
+          out.writeByte(e.flags);
+        }
+      }
+      dirty = false;
+    } catch (IOException ex) {
+      LOG.warn("Failed saving registry cache.", ex);
+    }
+  }
+
+  /**
+   * Clear this instance.
+   */
+  void clear() {
+    modules.clear();
+  }
+
+  private static void intern(Map<String, Integer> strings, String s) {
+    strings.computeIfAbsent(s, k -> strings.size());
+  }
+
+  private static String moduleKey(ModuleHolder module) {
+    Map<String, Integer> counts = new TreeMap<>();
+    module.bankItemCounts.forEach((type, count) ->
+      counts.put(type.getName(), count)
+    );
+    return moduleName(module) + counts;
+  }
+
+  private static String moduleName(ModuleHolder module) {
+    return (
+      module.getAbsoluteName() + ':' + module.getNodeType().getName() + '#'
+    );
+  }
+
+  /**
+   * Resolves classes and methods from recorded names.
+   */
+  private static class Resolver {
+
+    private final String[] strings;
+    private final Class<?>[] classes;
+    private final Map<Class<?>, Method[]> methods;
+    private final ClassLoader classLoader;
+
+    private Resolver(String[] strings) {
+      this.strings = strings;
+      this.classes = new Class<?>[strings.length];
+      this.methods = new HashMap<>();
+      this.classLoader = RegistryCache.class.getClassLoader();
+    }
+
+    private Class<?> classAt(int index) throws ClassNotFoundException {
+      Class<?> c = classes[index];
+      if (c == null) {
+        c = ClassUtils.getClass(classLoader, strings[index], false);
+        classes[index] = c;
+      }
+      return c;
+    }
+
+    private Method method(
+      Class<?> declaringClass,
+      String name,
+      Class<?>[] paramTypes
+    ) throws NoSuchMethodException {
+      Method[] declared = methods.computeIfAbsent(
+        declaringClass,
+        Class::getDeclaredMethods
+      );
+      for (Method m : declared) {
+        if (
+          !m.isBridge() &&
+          m.getName().equals(name) &&
+          Arrays.equals(m.getParameterTypes(), paramTypes)
+        ) {
+          return m;
+        }
+      }
+      throw new NoSuchMethodException(
+        declaringClass.getName() + "#" + name
+      );
+    }
+  }
+}
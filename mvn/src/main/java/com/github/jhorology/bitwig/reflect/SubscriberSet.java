@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.reflect;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import org.java_websocket.WebSocket;
+
+/**
+ * A copy-on-write set of subscribers.<br>
+ * Membership is indexed by hash set, and fan-out iterates a stable snapshot
+ * array that is replaced at each modification.
+ */
+class SubscriberSet extends AbstractCollection<WebSocket> {
+
+  private static final WebSocket[] EMPTY = {};
+
+  private final Set<WebSocket> index;
+  private volatile WebSocket[] snapshot;
+
+  /**
+   * Constructor.
+   */
+  SubscriberSet() {
+    this.index = new HashSet<>();
+    this.snapshot = EMPTY;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean add(WebSocket client) {
+    if (!index.add(client)) {
+      return false;
+    }
+    WebSocket[] current = snapshot;
+    WebSocket[] next = Arrays.copyOf(current, current.length + 1);
+    next[current.length] = client;
+    snapshot = next;
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean remove(Object client) {
+    if (!index.remove(client)) {
+      return false;
+    }
+    WebSocket[] current = snapshot;
+    if (current.length == 1) {
+      snapshot = EMPTY;
+      return true;
+    }
+    WebSocket[] next = new WebSocket[current.length - 1];
+    int pos = 0;
+    for (WebSocket c : current) {
+      if (c != client) {
+        next[pos++] = c;
+      }
+    }
+    snapshot = next;
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean contains(Object client) {
+    return index.contains(client);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void clear() {
+    index.clear();
+    snapshot = EMPTY;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int size() {
+    return snapshot.length;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isEmpty() {
+    return snapshot.length == 0;
+  }
+
+  /**
+   * Returns an iterator over the snapshot at this time.<br>
+   * The iterator is not affected by subsequent modifications.
+   * @return
+   */
+  @Override
+  public Iterator<WebSocket> iterator() {
+    return Arrays.asList(snapshot).iterator();
+  }
+
+  /**
+   * Returns the current snapshot array, must not be modified.
+   * @return
+   */
+  WebSocket[] snapshot() {
+    return snapshot;
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.reflect;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.java_websocket.WebSocket;
+
+/**
+ * A per-connection index of subscribed events.<br>
+ * Disconnecting client touches only the events that the client held.
+ */
+class SubscriptionIndex {
+
+  private final Map<WebSocket, Set<EventHolder>> events;
+
+  /**
+   * Constructor.
+   */
+  SubscriptionIndex() {
+    this.events = new HashMap<>();
+  }
+
+  /**
+   * Add an event that is subscribed by the client.
+   * @param client
+   * @param event
+   */
+  void add(WebSocket client, EventHolder event) {
+    events.computeIfAbsent(client, k -> new HashSet<>()).add(event);
+  }
+
+  /**
+   * Remove an event that is unsubscribed by the client.
+   * @param client
+   * @param event
+   */
+  void remove(WebSocket client, EventHolder event) {
+    Set<EventHolder> set = events.get(client);
+    if (set != null && set.remove(event) && set.isEmpty()) {
+      events.remove(client);
+    }
+  }
+
+  /**
+   * Remove the client from this index.
+   * @param client
+   * @return the events that have been subscribed by the client.
+   */
+  Set<EventHolder> remove(WebSocket client) {
+    Set<EventHolder> set = events.remove(client);
+    return set != null ? set : Collections.emptySet();
+  }
+
+  /**
+   * Clear this instance.
+   */
+  void clear() {
+    events.clear();
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.rpc;
+
+import com.google.gson.annotations.Expose;
+
+/**
+ * A POJO class for the options of event subscription.
+ * <pre>{@code
+ *   rpc.on([{"event": "transport.getPosition", "maxHz": 30, "minDelta": 0.01}])
+ *   rpc.on("mainTrackBank.getItemAt.volume.value", {"bank": [[0, 7]]})
+ * }</pre>
+ */
+public class EventSubscription {
+
+  @Expose
+  private String event;
+
+  @Expose
+  private double maxHz;
+
+  @Expose
+  private double minDelta;
+
+  @Expose
+  private int[][] bank;
+
+  /**
+   * Constructor.
+   */
+  public EventSubscription() {}
+
+  /**
+   * Constructor.
+   * @param event the name of event.
+   * @param maxHz the maximum rate of notifications, 0 means unlimited.
+   * @param minDelta the minimum change of numeric value, 0 means any change.
+   */
+  public EventSubscription(String event, double maxHz, double minDelta) {
+    this.event = event;
+    this.maxHz = maxHz;
+    this.minDelta = minDelta;
+  }
+
+  /**
+   * Get a name of event.
+   * @return
+   */
+  public String getEvent() {
+    return event;
+  }
+
+  /**
+   * Get a maximum rate of notifications per second.
+   * @return 0 means unlimited.
+   */
+  public double getMaxHz() {
+    return maxHz;
+  }
+
+  /**
+   * Get a minimum change of numeric value to be notified.
+   * @return 0 means any change.
+   */
+  public double getMinDelta() {
+    return minDelta;
+  }
+
+  /**
+   * Get a filter of bank items.<br>
+   * Each element is an inclusive range [from, to] or a single index [index]
+   * of each bank dimension, omitted dimensions match all items.
+   * @return null means all bank items.
+   */
+  public int[][] getBank() {
+    return bank;
+  }
+
+  /**
+   * Return a this subscription limits notifications or not.
+   * @return
+   */
+  public boolean isThrottled() {
+    return maxHz > 0 || minDelta > 0;
+  }
+}
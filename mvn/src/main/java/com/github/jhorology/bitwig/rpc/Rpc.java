@@ -46,6 +46,21 @@ public interface Rpc {
    */
   Map<String, String> on(String... eventNames);
 
+  /**
+   * Add the remote connection to subscriber list of each event with options.
+   * @param subscriptions the events to subscribe and the rate limiting options.
+   * @return the mapped results of each event. "ok" or error message.
+   */
+  Map<String, String> on(EventSubscription... subscriptions);
+
+  /**
+   * Add the remote connection to subscriber list of the event with options.
+   * @param eventName the name of event to subscribe.
+   * @param options the rate limiting options and the filter of bank items.
+   * @return the mapped result of the event. "ok" or error message.
+   */
+  Map<String, String> on(String eventName, EventSubscription options);
+
   /**
    * Remove the remote connection from subscriber list of each event.
    * @param eventNames the names of event to unsubscribe.
@@ -80,6 +95,24 @@ public interface Rpc {
    */
   Object reportEvents();
 
+  /**
+   * report outbound buffers of all remote connections.
+   * @return watermarks and counters of replaced messages.
+   */
+  Object reportOutbound();
+
+  /**
+   * report inbound queues of all remote connections.
+   * @return queue depth, wait time and counters of rejected or dropped requests.
+   */
+  Object reportInbound();
+
+  /**
+   * report busy-period metrics of 'Control Surface Session' executor.
+   * @return budget, busy time and counters of exhausted budget.
+   */
+  Object reportExecutor();
+
   /**
    * log event for debugging
    * @return latest log message.
@@ -34,6 +34,14 @@ public interface RpcEvent {
    */
   void subscribe(WebSocket client);
 
+  /**
+   * Subscribe this event with options.<br>
+   * If already subscribed, the options are updated.
+   * @param client the remote client connection
+   * @param subscription the options of rate limiting and the filter of bank items.
+   */
+  void subscribe(WebSocket client, EventSubscription subscription);
+
   /**
    * Unsubscribe this event.
    * @param client the remote client connection
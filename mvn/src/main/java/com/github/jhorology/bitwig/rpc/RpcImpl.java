@@ -30,6 +30,7 @@ import com.github.jhorology.bitwig.logging.LoggerFactory;
 import com.github.jhorology.bitwig.websocket.protocol.Notification;
 import com.github.jhorology.bitwig.websocket.protocol.PushModel;
 import com.github.jhorology.bitwig.websocket.protocol.RequestContext;
+import java.util.Collections;
 import java.util.Map;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
@@ -61,6 +62,34 @@ public class RpcImpl implements Rpc {
     return acceptEvents(eventNames, (e, c) -> e.subscribe(c));
   }
 
+  /**
+   * Add the remote connection to subscriber list of each event with options.
+   * @param subscriptions the events to subscribe and the rate limiting options.
+   * @return the mapped results of each event. "ok" or error message.
+   */
+  @Override
+  public Map<String, String> on(EventSubscription... subscriptions) {
+    return Stream
+      .of(subscriptions)
+      .map(s -> acceptEvent(s.getEvent(), (e, c) -> e.subscribe(c, s)))
+      .collect(Collectors.toMap(r -> r[0], r -> r[1]));
+  }
+
+  /**
+   * Add the remote connection to subscriber list of the event with options.
+   * @param eventName the name of event to subscribe.
+   * @param options the rate limiting options and the filter of bank items.
+   * @return the mapped result of the event. "ok" or error message.
+   */
+  @Override
+  public Map<String, String> on(String eventName, EventSubscription options) {
+    String[] result = acceptEvent(
+      eventName,
+      (e, c) -> e.subscribe(c, options)
+    );
+    return Collections.singletonMap(result[0], result[1]);
+  }
+
   /**
    * Remove the remote connection from subscriber list of each event.
    * @param eventNames the names of event to unsubscribe.
@@ -124,6 +153,35 @@ public class RpcImpl implements Rpc {
     return registry.reportEvents();
   }
 
+  /**
+   * report outbound buffers of all remote connections.
+   * @return watermarks and counters of replaced messages.
+   */
+  @Override
+  public Object reportOutbound() {
+    PushModel pushModel = RequestContext.getContext().getPushModel();
+    return pushModel != null ? pushModel.reportOutbound() : null;
+  }
+
+  /**
+   * report inbound queues of all remote connections.
+   * @return queue depth, wait time and counters of rejected or dropped requests.
+   */
+  @Override
+  public Object reportInbound() {
+    PushModel pushModel = RequestContext.getContext().getPushModel();
+    return pushModel != null ? pushModel.reportInbound() : null;
+  }
+
+  /**
+   * report busy-period metrics of 'Control Surface Session' executor.
+   * @return budget, busy time and counters of exhausted budget.
+   */
+  @Override
+  public Object reportExecutor() {
+    return ExecutionContext.getContext().getAsyncExecutor().report();
+  }
+
   /**
    * remote configuration
    * @param config
@@ -106,6 +106,20 @@ public class RpcParamType implements Comparable<RpcParamType> {
     ANY
   );
 
+  private static final RpcParamType[] VALUES = {
+    VOID,
+    BOOLEAN,
+    NUMBER,
+    STRING,
+    OBJECT,
+    ANY,
+    BOOLEAN_ARRAY,
+    NUMBER_ARRAY,
+    STRING_ARRAY,
+    OBJECT_ARRAY,
+    ANY_ARRAY,
+  };
+
   private final int hashCode;
   private final String expression;
   private final RpcParamType componentType;
@@ -170,6 +184,14 @@ public class RpcParamType implements Comparable<RpcParamType> {
     return ((Integer) hashCode).compareTo(other.hashCode);
   }
 
+  /**
+   * return a code of the enum value.
+   * @return
+   */
+  public int getCode() {
+    return hashCode;
+  }
+
   /**
    * return a expression of the enamu value.
    * @return
@@ -210,6 +232,20 @@ public class RpcParamType implements Comparable<RpcParamType> {
     return componentType != null;
   }
 
+  /**
+   * Return a RpcParamType type that represents the specified code.
+   * @param code the code of enum value.
+   * @return the enum value of RpcParamType, null if code is unknown.
+   */
+  public static RpcParamType ofCode(int code) {
+    for (RpcParamType type : VALUES) {
+      if (type.hashCode == code) {
+        return type;
+      }
+    }
+    return null;
+  }
+
   /**
    * Return a array of RpcParamType types that represents the specified array of types.
    * @param types array of strict java type
@@ -36,6 +36,14 @@ public interface RpcRegistry {
    */
   RpcMethod getRpcMethod(String name, RpcParamType[] paramTypes);
 
+  /**
+   * Get an interface for RPC method model.
+   * @param name the method name.
+   * @param signature the parameter types that is packed by {@link RpcSignature}.
+   * @return
+   */
+  RpcMethod getRpcMethod(String name, long signature);
+
   /**
    * Get an interface for RPC event model.
    * @param name the event name.
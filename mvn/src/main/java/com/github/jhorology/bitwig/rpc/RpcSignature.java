@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.rpc;
+
+/**
+ * A utility class for signature of RPC method that is packed into a long value.<br>
+ * <pre>
+ * Each parameter type is packed as 8bits code of {@link RpcParamType}, first parameter is lowest byte.
+ *   (number, string) -> 0x0302
+ * RPC methods that have more than 8 parameters can't be packed.
+ * </pre>
+ */
+public final class RpcSignature {
+
+  /**
+   * The maximum number of parameters that can be packed.
+   */
+  public static final int MAX_PACKED_PARAMS = 8;
+
+  /**
+   * The signature of no parameters.
+   */
+  public static final long EMPTY = 0L;
+
+  /**
+   * The signature that can't be packed.
+   */
+  public static final long UNPACKABLE = -1L;
+
+  private static final int BITS = 8;
+  private static final long MASK = 0xffL;
+  private static final int ARRAY_BIT = 0x10;
+
+  // private constructor prevents instantiation
+  private RpcSignature() {}
+
+  /**
+   * Returns a signature that represents the specified parameter types.
+   * @param types
+   * @return
+   */
+  public static long of(RpcParamType[] types) {
+    long signature = EMPTY;
+    for (RpcParamType type : types) {
+      signature = append(signature, type);
+    }
+    return signature;
+  }
+
+  /**
+   * Returns a signature that is added a parameter type.
+   * @param signature
+   * @param type
+   * @return
+   */
+  public static long append(long signature, RpcParamType type) {
+    if (signature == UNPACKABLE) {
+      return UNPACKABLE;
+    }
+    int arity = arity(signature);
+    if (arity >= MAX_PACKED_PARAMS) {
+      return UNPACKABLE;
+    }
+    return signature | ((long) type.getCode() << (arity * BITS));
+  }
+
+  /**
+   * Returns a number of parameters.
+   * @param signature
+   * @return
+   */
+  public static int arity(long signature) {
+    int arity = 0;
+    while (arity < MAX_PACKED_PARAMS && codeAt(signature, arity) != 0) {
+      arity++;
+    }
+    return arity;
+  }
+
+  /**
+   * Returns a code of parameter type at the specified position.
+   * @param signature
+   * @param index
+   * @return
+   */
+  public static int codeAt(long signature, int index) {
+    return (int) ((signature >>> (index * BITS)) & MASK);
+  }
+
+  /**
+   * Returns a mask that selects a parameter at the specified position.
+   * @param index
+   * @return
+   */
+  public static long maskAt(int index) {
+    return MASK << (index * BITS);
+  }
+
+  /**
+   * Returns a bit that is set in code of all array types at the specified position.
+   * @param index
+   * @return
+   */
+  public static long arrayBitAt(int index) {
+    return (long) ARRAY_BIT << (index * BITS);
+  }
+
+  /**
+   * convert to varargs signature if available.<br>
+   * [number, number, number] -> [number[]]
+   * @param signature
+   * @return UNPACKABLE if not available.
+   */
+  public static long toVarargs(long signature) {
+    if (signature == UNPACKABLE || signature == EMPTY) {
+      return UNPACKABLE;
+    }
+    int first = codeAt(signature, 0);
+    if ((first & ARRAY_BIT) != 0) {
+      return UNPACKABLE;
+    }
+    int arity = arity(signature);
+    for (int i = 1; i < arity; i++) {
+      if (codeAt(signature, i) != first) {
+        return UNPACKABLE;
+      }
+    }
+    RpcParamType arrayType = RpcParamType.ofCode(first).getArrayType();
+    return arrayType != null ? arrayType.getCode() : UNPACKABLE;
+  }
+}
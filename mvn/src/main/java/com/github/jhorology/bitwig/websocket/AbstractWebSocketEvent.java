@@ -1,49 +0,0 @@
-/*
- * Copyright (c) 2018 Masafumi Fujimaru
- *
- * Permission is hereby granted, free of charge, to any person obtaining
- * a copy of this software and associated documentation files (the
- * "Software"), to deal in the Software without restriction, including
- * without limitation the rights to use, copy, modify, merge, publish,
- * distribute, sublicense, and/or sell copies of the Software, and to
- * permit persons to whom the Software is furnished to do so, subject to
- * the following conditions:
- *
- * The above copyright notice and this permission notice shall be
- * included in all copies or substantial portions of the Software.
- *
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
- * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
- * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
- * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
- * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
- * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
- * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
- */
-package com.github.jhorology.bitwig.websocket;
-
-import org.java_websocket.WebSocket;
-
-/**
- * An abstract base class for websockt events.
- */
-public abstract class AbstractWebSocketEvent {
-
-  protected final WebSocket conn;
-
-  /**
-   * Constructor.
-   * @param conn the client connection.
-   */
-  protected AbstractWebSocketEvent(WebSocket conn) {
-    this.conn = conn;
-  }
-
-  /**
-   * Get a client connection that's undwrlying this event.
-   * @return the client connection, mayby it's null.
-   */
-  public WebSocket getConnection() {
-    return conn;
-  }
-}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.websocket;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.java_websocket.extensions.IExtension;
+import org.java_websocket.extensions.permessage_deflate.PerMessageDeflateExtension;
+import org.java_websocket.framing.BinaryFrame;
+import org.java_websocket.framing.Framedata;
+import org.java_websocket.framing.TextFrame;
+
+/**
+ * The permessage-deflate extension with a size threshold.<br>
+ * A message smaller than the threshold is sent without compression, that is
+ * allowed by RFC 7692 as RSV1 bit is not set. The extension is negotiated
+ * for each client, clients that don't offer it are served by the default
+ * extension. Each connection has a copy of this instance, and all copies
+ * share the statistics.
+ */
+final class DeflateExtension extends PerMessageDeflateExtension {
+
+  private final int threshold;
+  private final Stats stats;
+
+  /**
+   * The statistics of compression shared by all connections.
+   */
+  private static class Stats {
+
+    private final AtomicLong negotiated = new AtomicLong();
+    private final AtomicLong compressed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+    private final AtomicLong nanos = new AtomicLong();
+  }
+
+  /**
+   * Constructor.
+   * @param threshold the minimum size of message in bytes to be compressed.
+   */
+  DeflateExtension(int threshold) {
+    this(threshold, new Stats());
+  }
+
+  private DeflateExtension(int threshold, Stats stats) {
+    this.threshold = threshold;
+    this.stats = stats;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void encodeFrame(Framedata inputFrame) {
+    boolean message =
+      inputFrame instanceof TextFrame || inputFrame instanceof BinaryFrame;
+    if (!message) {
+      // control frame or continuation of a compressed message.
+      super.encodeFrame(inputFrame);
+      return;
+    }
+    int size = inputFrame.getPayloadData().remaining();
+    if (inputFrame.isFin() && size < threshold) {
+      stats.skipped.incrementAndGet();
+      return;
+    }
+    long start = System.nanoTime();
+    super.encodeFrame(inputFrame);
+    stats.nanos.addAndGet(System.nanoTime() - start);
+    stats.compressed.incrementAndGet();
+    stats.bytesIn.addAndGet(size);
+    stats.bytesOut.addAndGet(inputFrame.getPayloadData().remaining());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean acceptProvidedExtensionAsServer(String inputExtension) {
+    boolean accepted = super.acceptProvidedExtensionAsServer(inputExtension);
+    if (accepted) {
+      stats.negotiated.incrementAndGet();
+    }
+    return accepted;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public IExtension copyInstance() {
+    return new DeflateExtension(threshold, stats);
+  }
+
+  /**
+   * create a report object for this class.
+   * @return
+   */
+  Object report() {
+    Map<String, Object> report = new LinkedHashMap<>();
+    long compressed = stats.compressed.get();
+    long bytesIn = stats.bytesIn.get();
+    long bytesOut = stats.bytesOut.get();
+    long nanos = stats.nanos.get();
+    report.put("threshold", threshold);
+    report.put("negotiated", stats.negotiated.get());
+    report.put("compressed", compressed);
+    report.put("skipped", stats.skipped.get());
+    report.put("bytesIn", bytesIn);
+    report.put("bytesOut", bytesOut);
+    report.put("ratio", bytesIn > 0 ? (double) bytesOut / bytesIn : 0d);
+    report.put("cpuMillis", TimeUnit.NANOSECONDS.toMillis(nanos));
+    report.put("avgMicros", compressed > 0 ? nanos / compressed / 1000L : 0L);
+    return report;
+  }
+}
@@ -1,19 +0,0 @@
-package com.github.jhorology.bitwig.websocket;
-
-import org.java_websocket.WebSocket;
-import org.java_websocket.framing.Framedata;
-
-@Deprecated
-public class FragmentEvent extends AbstractWebSocketEvent {
-
-  private final Framedata fragment;
-
-  FragmentEvent(WebSocket conn, Framedata fragment) {
-    super(conn);
-    this.fragment = fragment;
-  }
-
-  public Framedata getFragment() {
-    return fragment;
-  }
-}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.websocket;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.java_websocket.WebSocket;
+
+/**
+ * Per-client accounting of inbound messages those are queued for
+ * 'Control Surface Session' thread.<br>
+ * The counters of clients are updated from WebSocket worker threads, the
+ * wait-time metrics are updated only from 'Control Surface Session' thread.
+ */
+class InboundQueues {
+
+  /**
+   * The queued messages of a client.
+   */
+  static class Client {
+
+    // number of queued messages.
+    final AtomicInteger pending = new AtomicInteger();
+    final AtomicLong rejected = new AtomicLong();
+    final AtomicLong dropped = new AtomicLong();
+    volatile int maxPending;
+    // sequences of queued notifications, in order of arrival.
+    private final long[] notifications;
+    private int head;
+    private int size;
+
+    Client(int capacity) {
+      notifications = new long[capacity];
+    }
+
+    /**
+     * Count a queued message.
+     */
+    void queued() {
+      int n = pending.incrementAndGet();
+      if (n > maxPending) {
+        maxPending = n;
+      }
+    }
+
+    /**
+     * Hold a sequence of queued notification.
+     * @param sequence
+     */
+    synchronized void addNotification(long sequence) {
+      if (size == notifications.length) {
+        // the oldest one is already handled.
+        head = (head + 1) % notifications.length;
+        size--;
+      }
+      notifications[(head + size) % notifications.length] = sequence;
+      size++;
+    }
+
+    /**
+     * Takes the sequence of oldest queued notification.
+     * @return the sequence, or -1 if no notification.
+     */
+    synchronized long pollNotification() {
+      if (size == 0) {
+        return -1;
+      }
+      long sequence = notifications[head];
+      head = (head + 1) % notifications.length;
+      size--;
+      return sequence;
+    }
+
+    /**
+     * Count a message that is taken by the consumer.
+     * @param sequence
+     */
+    void taken(long sequence) {
+      pending.decrementAndGet();
+      synchronized (this) {
+        // messages of a client are taken in order of arrival.
+        if (size > 0 && notifications[head] == sequence) {
+          head = (head + 1) % notifications.length;
+          size--;
+        }
+      }
+    }
+  }
+
+  private final Map<WebSocket, Client> clients = new ConcurrentHashMap<>();
+  private final OverloadPolicy policy;
+  private final int maxQueued;
+  // updated only from 'Control Surface Session' thread.
+  private long handled;
+  private long totalWaitNanos;
+  private long maxWaitNanos;
+  private int maxDepth;
+
+  /**
+   * Constructor.
+   * @param policy
+   * @param maxQueued the maximum number of queued messages per client.
+   */
+  InboundQueues(OverloadPolicy policy, int maxQueued) {
+    this.policy = policy;
+    this.maxQueued = Math.max(1, maxQueued);
+  }
+
+  /**
+   * Returns the policy for overloaded client.
+   * @return
+   */
+  OverloadPolicy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * Returns the maximum number of queued messages per client.
+   * @return
+   */
+  int getMaxQueued() {
+    return maxQueued;
+  }
+
+  /**
+   * Returns the queue of specified client.
+   * @param conn
+   * @return
+   */
+  Client get(WebSocket conn) {
+    return clients.computeIfAbsent(conn, c -> new Client(maxQueued));
+  }
+
+  /**
+   * Remove the client.
+   * @param conn
+   */
+  void remove(WebSocket conn) {
+    clients.remove(conn);
+  }
+
+  /**
+   * Record the metrics of a handled message.<br>
+   * This method is called from only 'Control Surface Session' thread.
+   * @param waitNanos the elapsed time since queued.
+   * @param depth the current depth of queue.
+   */
+  void handled(long waitNanos, int depth) {
+    handled++;
+    totalWaitNanos += waitNanos;
+    if (waitNanos > maxWaitNanos) {
+      maxWaitNanos = waitNanos;
+    }
+    if (depth > maxDepth) {
+      maxDepth = depth;
+    }
+  }
+
+  /**
+   * create a report object for this class.
+   * @param capacity the capacity of queue.
+   * @param depth the current depth of queue.
+   * @return
+   */
+  Object report(int capacity, int depth) {
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("policy", policy);
+    report.put("maxQueuedPerClient", maxQueued);
+    report.put("capacity", capacity);
+    report.put("depth", depth);
+    report.put("maxDepth", maxDepth);
+    report.put("handled", handled);
+    report.put(
+      "averageWaitMillis",
+      handled > 0 ? totalWaitNanos / 1e6 / handled : 0d
+    );
+    report.put("maxWaitMillis", maxWaitNanos / 1e6);
+    List<Object> clientReports = new ArrayList<>();
+    clients.forEach((conn, client) -> {
+      Map<String, Object> c = new LinkedHashMap<>();
+      c.put(
+        "remoteAddress",
+        conn.getRemoteSocketAddress() != null
+          ? conn.getRemoteSocketAddress().toString()
+          : null
+      );
+      c.put("pending", client.pending.get());
+      c.put("maxPending", client.maxPending);
+      c.put("rejected", client.rejected.get());
+      c.put("dropped", client.dropped.get());
+      clientReports.add(c);
+    });
+    report.put("clients", clientReports);
+    return report;
+  }
+}
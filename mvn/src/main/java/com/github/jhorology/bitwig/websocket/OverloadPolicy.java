@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018 Masafumi Fujimaru
+ * Copyright (c) 2020 Masafumi Fujimaru
  *
  * Permission is hereby granted, free of charge, to any person obtaining
  * a copy of this software and associated documentation files (the
@@ -22,29 +22,42 @@
  */
 package com.github.jhorology.bitwig.websocket;
 
-import org.java_websocket.server.WebSocketServer;
-
 /**
- * An event class for notification of websocket server's start-of-lifecycle.
+ * The policies for the client that has too many queued requests.
  */
-public class StartEvent extends AbstractWebSocketEvent {
+public enum OverloadPolicy {
+  /**
+   * Stop reading further messages from the client until queued requests are
+   * processed. No message is lost.<br>
+   * The WebSocket worker thread is held while pausing, the other clients
+   * assigned to the same worker thread are also paused.
+   */
+  PAUSE("Pause reading(blocks shared worker)"),
 
-  private final WebSocketServer webSocketServer;
+  /**
+   * Respond to new requests with "server busy" error immediately.<br>
+   * Requests are also rejected while the shared queue of all clients is full.
+   */
+  REJECT("Reject with server busy error"),
 
   /**
-   * Constructor.
-   * @param webSocketServer the instance of {@link WebSocketServer}
+   * Drop the oldest queued notification(request without id) of the client.
+   * If there is no notification to drop, new notification is dropped, and
+   * a request with id is rejected with "server busy" error.
    */
-  StartEvent(WebSocketServer webSocketServer) {
-    super(null);
-    this.webSocketServer = webSocketServer;
+  DROP_OLDEST_NOTIFICATION("Drop oldest notification");
+
+  private final String displayName;
+
+  private OverloadPolicy(String displayName) {
+    this.displayName = displayName;
   }
 
   /**
-   * Get an instance of {@link WebSocketServer}.
+   * Get a display name of this policy for UI.
    * @return
    */
-  public WebSocketServer getWebSocketServer() {
-    return webSocketServer;
+  public String getDisplayName() {
+    return displayName;
   }
 }
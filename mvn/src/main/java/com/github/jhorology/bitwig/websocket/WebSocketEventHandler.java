@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.websocket;
+
+import java.nio.ByteBuffer;
+import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+
+/**
+ * The handler of WebSocket server events.<br>
+ * The handle* methods are called from within 'Control Surface Session' thread,
+ * other methods are called from WebSocket worker threads.
+ */
+public interface WebSocketEventHandler {
+  /**
+   * Handles the server started.
+   * @param server
+   */
+  void handleStart(WebSocketServer server);
+
+  /**
+   * Handles the server is stopping.
+   */
+  void handleStop();
+
+  /**
+   * Handles the end of flush cycle of extension.
+   */
+  void handleFlush();
+
+  /**
+   * Handles a new connection.
+   * @param conn
+   * @param handshake
+   */
+  void handleOpen(WebSocket conn, ClientHandshake handshake);
+
+  /**
+   * Handles a closed connection.
+   * @param conn
+   * @param code
+   * @param reason
+   * @param remote
+   */
+  void handleClose(WebSocket conn, int code, String reason, boolean remote);
+
+  /**
+   * Handles a text message.
+   * @param conn
+   * @param message
+   */
+  void handleMessage(WebSocket conn, String message);
+
+  /**
+   * Handles a binary message.
+   * @param conn
+   * @param message
+   */
+  void handleMessage(WebSocket conn, ByteBuffer message);
+
+  /**
+   * Handles a message that has been decoded by WebSocket worker thread.
+   * @param conn
+   * @param decoded the object returned by decode methods.
+   */
+  void handleDecoded(WebSocket conn, Object decoded);
+
+  /**
+   * Handles an error.
+   * @param conn maybe null.
+   * @param ex
+   */
+  void handleError(WebSocket conn, Exception ex);
+
+  /**
+   * Returns whether the message can be dropped without response.<br>
+   * This method is called from WebSocket worker threads.
+   * @param message
+   * @return
+   */
+  boolean isDiscardable(String message);
+
+  /**
+   * Returns whether the message can be dropped without response.<br>
+   * This method is called from WebSocket worker threads.
+   * @param message
+   * @return
+   */
+  boolean isDiscardable(ByteBuffer message);
+
+  /**
+   * Decodes the message before it is queued.<br>
+   * This method is called from WebSocket worker threads, the result is
+   * passed to {@link #handleDecoded(WebSocket, Object)}.
+   * @param conn
+   * @param message
+   * @return null if the message should be passed to
+   *         {@link #handleMessage(WebSocket, String)} as is.
+   */
+  Object decode(WebSocket conn, String message);
+
+  /**
+   * Decodes the message before it is queued.<br>
+   * This method is called from WebSocket worker threads, the result is
+   * passed to {@link #handleDecoded(WebSocket, Object)}.
+   * @param conn
+   * @param message
+   * @return null if the message should be passed to
+   *         {@link #handleMessage(WebSocket, ByteBuffer)} as is.
+   */
+  Object decode(WebSocket conn, ByteBuffer message);
+
+  /**
+   * Responds to the message that is rejected because server is busy.<br>
+   * This method is called from WebSocket worker threads.
+   * @param conn
+   * @param message
+   */
+  void reject(WebSocket conn, String message);
+
+  /**
+   * Responds to the message that is rejected because server is busy.<br>
+   * This method is called from WebSocket worker threads.
+   * @param conn
+   * @param message
+   */
+  void reject(WebSocket conn, ByteBuffer message);
+}
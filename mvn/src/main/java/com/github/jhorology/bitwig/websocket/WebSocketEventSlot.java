@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.websocket;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
+
+/**
+ * A pre-allocated slot of WebSocket events for dispatching to
+ * 'Control Surface Session' thread.
+ */
+final class WebSocketEventSlot {
+
+  enum Type {
+    START,
+    OPEN,
+    CLOSE,
+    TEXT,
+    BINARY,
+    ERROR
+  }
+
+  Type type;
+  WebSocket conn;
+  ClientHandshake handshake;
+  String text;
+  ByteBuffer binary;
+  // the message that has been decoded by worker thread.
+  Object decoded;
+  int code;
+  String reason;
+  boolean remote;
+  Exception exception;
+  // for the accounting of inbound messages.
+  InboundQueues.Client client;
+  long queuedNanos;
+  long sequence;
+  // holds the sequence while the message is cancellable.
+  final AtomicLong owner = new AtomicLong(-1);
+
+  /**
+   * Take the ownership of the message from producers.
+   * @return false if the message has been cancelled.
+   */
+  boolean take() {
+    return owner.compareAndSet(sequence, -1);
+  }
+
+  /**
+   * Clear the references for reuse.
+   */
+  void clear() {
+    type = null;
+    conn = null;
+    handshake = null;
+    text = null;
+    binary = null;
+    decoded = null;
+    reason = null;
+    exception = null;
+    client = null;
+  }
+}
@@ -24,20 +24,24 @@ package com.github.jhorology.bitwig.websocket;
 
 import com.bitwig.extension.controller.api.ControllerHost;
 import com.github.jhorology.bitwig.Config;
+import com.github.jhorology.bitwig.extension.ControlSurfaceSessionExecutor;
 import com.github.jhorology.bitwig.extension.ExitEvent;
+import com.github.jhorology.bitwig.extension.FlushEvent;
 import com.github.jhorology.bitwig.extension.InitEvent;
+import com.github.jhorology.bitwig.extension.MpscRing;
 import com.github.jhorology.bitwig.logging.LoggerFactory;
 import com.github.jhorology.bitwig.websocket.protocol.ProtocolHandler;
-import com.google.common.eventbus.AsyncEventBus;
 import com.google.common.eventbus.Subscribe;
-import com.google.common.eventbus.SubscriberExceptionContext;
-import com.google.common.eventbus.SubscriberExceptionHandler;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Supplier;
 import org.java_websocket.WebSocket;
 import org.java_websocket.drafts.Draft;
+import org.java_websocket.drafts.Draft_6455;
 import org.java_websocket.exceptions.InvalidDataException;
 import org.java_websocket.framing.CloseFrame;
 import org.java_websocket.handshake.ClientHandshake;
@@ -48,20 +52,26 @@ import org.slf4j.Logger;
 /**
  * An implementation of WebSocketServer.
  * Bassically do nothing in this class, it just exists for dispatching events to 'Control Surface Session" thread.
+ * Events are published to pre-allocated slots of a ring buffer, and drained by the session executor.
  */
-public class WebSocketRpcServer
-  extends WebSocketServer
-  implements SubscriberExceptionHandler {
+public class WebSocketRpcServer extends WebSocketServer {
 
   private static final Logger LOG = LoggerFactory.getLogger(
     WebSocketRpcServer.class
   );
 
-  private AsyncEventBus eventBus;
+  private static final int EVENT_RING_SIZE = 1024;
+  // back-off time of worker thread while the client is paused.
+  private static final long PAUSE_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+  private ControlSurfaceSessionExecutor executor;
+  private MpscRing<WebSocketEventSlot> events;
+  private InboundQueues inbound;
   private final ProtocolHandler protocol;
+  // null if permessage-deflate is disabled.
+  private final DeflateExtension deflate;
   private DigestAuthentication auth;
   private boolean running;
-  private boolean fullDrained;
 
   /**
    * Construct a server.
@@ -75,7 +85,30 @@ public class WebSocketRpcServer
     ProtocolHandler protocol,
     int numWorkerThreads
   ) throws UnknownHostException {
-    this(new InetSocketAddress(port), protocol, numWorkerThreads);
+    this(new InetSocketAddress(port), protocol, numWorkerThreads, -1);
+  }
+
+  /**
+   * Construct a server.
+   * @param port
+   * @param protocol
+   * @param numWorkerThreads
+   * @param compressionThreshold the minimum size of message in bytes to be
+   *        compressed by permessage-deflate, or negative value to disable it.
+   * @throws java.net.UnknownHostException
+   */
+  public WebSocketRpcServer(
+    int port,
+    ProtocolHandler protocol,
+    int numWorkerThreads,
+    int compressionThreshold
+  ) throws UnknownHostException {
+    this(
+      new InetSocketAddress(port),
+      protocol,
+      numWorkerThreads,
+      compressionThreshold
+    );
   }
 
   /**
@@ -89,8 +122,48 @@ public class WebSocketRpcServer
     ProtocolHandler protocol,
     int numWorkerThreads
   ) {
-    super(address, numWorkerThreads);
+    this(address, protocol, numWorkerThreads, -1);
+  }
+
+  /**
+   * Construct a server.
+   * @param address
+   * @param protocol
+   * @param numWorkerThreads
+   * @param compressionThreshold the minimum size of message in bytes to be
+   *        compressed by permessage-deflate, or negative value to disable it.
+   */
+  public WebSocketRpcServer(
+    InetSocketAddress address,
+    ProtocolHandler protocol,
+    int numWorkerThreads,
+    int compressionThreshold
+  ) {
+    this(
+      address,
+      protocol,
+      numWorkerThreads,
+      compressionThreshold >= 0
+        ? new DeflateExtension(compressionThreshold)
+        : null
+    );
+  }
+
+  private WebSocketRpcServer(
+    InetSocketAddress address,
+    ProtocolHandler protocol,
+    int numWorkerThreads,
+    DeflateExtension deflate
+  ) {
+    super(
+      address,
+      numWorkerThreads,
+      deflate != null
+        ? Collections.singletonList(new Draft_6455(deflate))
+        : null
+    );
     this.protocol = protocol;
+    this.deflate = deflate;
 
     // ServerSocket#setReuseAddress()
     //
@@ -125,12 +198,28 @@ public class WebSocketRpcServer
         resourceDescriptor -> e.getConfig().isAuthRequired(),
         e.getConfig()::getAuthPassword
       );
-    // event bus for dispatching events to 'Control Surface Session' thread.
-    eventBus = new AsyncEventBus(e.getAsyncExecutor(), this);
-    eventBus.register(protocol);
+    // ring for dispatching events to 'Control Surface Session' thread.
+    executor = e.getAsyncExecutor();
+    events = new MpscRing<>(EVENT_RING_SIZE, WebSocketEventSlot::new);
+    inbound =
+      new InboundQueues(
+        e.getConfig().getOverloadPolicy(),
+        e.getConfig().getMaxQueuedRequestsPerClient()
+      );
+    executor.attach(events, this::dispatch);
     start(e.getHost());
   }
 
+  /**
+   * Handles the flush of extension.
+   * This method is called from within 'Control Surfaces Session' thread.
+   * @param e
+   */
+  @Subscribe
+  public final void onFlush(FlushEvent<Config> e) {
+    protocol.handleFlush();
+  }
+
   /**
    * De-initialize at extension's end of life-cycle.
    * This method is called from within 'Control Surfaces Session' thread.
@@ -141,16 +230,10 @@ public class WebSocketRpcServer
   public final void onExit(ExitEvent<Config> e) {
     try {
       LOG.info("waiting for WebSocket RPC server stop.");
-      eventBus.post(new StopEvent());
-      // --> unnecessary, but it's depend on FlushExecutor
-      // eventBus.register(this);
-      // fullDrained = false;
-      // eventBus.post(new FullDrainedEvent());
-      // waitFor(() -> fullDrained, 500L);
-      // if (fullDrained) {
-      //     LOG.info("AsyncEventBus has been full drained.");
-      // }
-      // <--
+      // already within 'Control Surface Session' thread,
+      // handle pending events before stop.
+      executor.signal();
+      protocol.handleStop();
       stop();
       // prevent Address in use error on restart extension.
       waitFor(() -> !running, 200L);
@@ -161,8 +244,8 @@ public class WebSocketRpcServer
     } catch (Exception ex) {
       LOG.error("Error on onExit().", ex);
     } finally {
-      eventBus.unregister(this);
-      eventBus.unregister(protocol);
+      // events after stop are discarded.
+      executor.detach(events);
     }
   }
 
@@ -188,7 +271,12 @@ public class WebSocketRpcServer
   @Override
   public void onStart() {
     // dispatch to 'Control Surface Session' thread.
-    eventBus.post(new StartEvent(this));
+    long seq = executor.claim(events);
+    if (seq >= 0) {
+      WebSocketEventSlot slot = events.get(seq);
+      slot.type = WebSocketEventSlot.Type.START;
+      publish(seq);
+    }
   }
 
   /**
@@ -231,7 +319,14 @@ public class WebSocketRpcServer
       return;
     }
     // dispatch to 'Control Surface Session' thread.
-    eventBus.post(new OpenEvent(conn, request));
+    long seq = executor.claim(events);
+    if (seq >= 0) {
+      WebSocketEventSlot slot = events.get(seq);
+      slot.type = WebSocketEventSlot.Type.OPEN;
+      slot.conn = conn;
+      slot.handshake = request;
+      publish(seq);
+    }
   }
 
   /**
@@ -245,7 +340,16 @@ public class WebSocketRpcServer
   @Override
   public void onClose(WebSocket conn, int code, String reason, boolean remote) {
     // dispatch to 'Control Surface Session' thread.
-    eventBus.post(new CloseEvent(conn, code, reason, remote));
+    long seq = executor.claim(events);
+    if (seq >= 0) {
+      WebSocketEventSlot slot = events.get(seq);
+      slot.type = WebSocketEventSlot.Type.CLOSE;
+      slot.conn = conn;
+      slot.code = code;
+      slot.reason = reason;
+      slot.remote = remote;
+      publish(seq);
+    }
   }
 
   /**
@@ -258,7 +362,7 @@ public class WebSocketRpcServer
   @Override
   public void onMessage(WebSocket conn, String message) {
     // dispatch to 'Control Surface Session' thread.
-    eventBus.post(new TextMessageEvent(conn, message));
+    enqueueMessage(conn, message, null);
   }
 
   /**
@@ -273,7 +377,7 @@ public class WebSocketRpcServer
   @Override
   public void onMessage(WebSocket conn, ByteBuffer message) {
     // dispatch to 'Control Surface Session' thread.
-    eventBus.post(new BinaryMessageEvent(conn, message));
+    enqueueMessage(conn, null, message);
   }
 
   /**
@@ -289,34 +393,233 @@ public class WebSocketRpcServer
   @Override
   public void onError(WebSocket conn, Exception ex) {
     // dispatch to 'Control Surface Session' thread.
-    eventBus.post(new ErrorEvent(conn, ex));
+    if (executor == null) {
+      // e.g. port could not be bound before initialization.
+      LOG.error("websocket error.", ex);
+      return;
+    }
+    long seq = executor.claim(events);
+    if (seq >= 0) {
+      WebSocketEventSlot slot = events.get(seq);
+      slot.type = WebSocketEventSlot.Type.ERROR;
+      slot.conn = conn;
+      slot.exception = ex;
+      publish(seq);
+    }
   }
 
   /**
-   * To knows AsyncEvent bus is full drained.
-   * @param e
+   * Returns a report of inbound queues.
+   * @return
    */
-  @Subscribe
-  @SuppressWarnings("NonPublicExported")
-  public void onFullDrained(FullDrainedEvent e) {
-    fullDrained = true;
+  public Object reportInbound() {
+    return inbound != null
+      ? inbound.report(events.capacity(), events.size())
+      : null;
   }
 
   /**
-   * Handles exceptions thrown by subscribers of eventBus.<br>
-   * An implementation of {@link SubscriberExceptionHandler#handleException(Throwable, SubscriberExceptionContext)}
-   * @param ex
-   * @param context
+   * Returns a report of permessage-deflate compression.
+   * @return null if compression is disabled.
    */
-  @Override
-  public void handleException(
-    Throwable ex,
-    SubscriberExceptionContext context
+  public Object reportCompression() {
+    return deflate != null ? deflate.report() : null;
+  }
+
+  private void publish(long seq) {
+    events.publish(seq);
+    executor.signal();
+  }
+
+  private void enqueueMessage(WebSocket conn, String text, ByteBuffer binary) {
+    InboundQueues.Client client = inbound.get(conn);
+    boolean notification =
+      inbound.getPolicy() == OverloadPolicy.DROP_OLDEST_NOTIFICATION &&
+      (
+        text != null
+          ? protocol.isDiscardable(text)
+          : protocol.isDiscardable(binary)
+      );
+    if (!admit(conn, client, text, binary, notification)) {
+      return;
+    }
+    // decode before claiming the slot, not to stall the consumer.
+    Object decoded = decode(conn, text, binary);
+    boolean pause = inbound.getPolicy() == OverloadPolicy.PAUSE;
+    long seq = pause ? executor.claim(events) : events.tryClaim();
+    if (seq < 0) {
+      client.pending.decrementAndGet();
+      if (!pause && !events.isClosed()) {
+        overflow(conn, client, text, binary, notification);
+      }
+      return;
+    }
+    WebSocketEventSlot slot = events.get(seq);
+    slot.type =
+      text != null
+        ? WebSocketEventSlot.Type.TEXT
+        : WebSocketEventSlot.Type.BINARY;
+    slot.conn = conn;
+    slot.text = text;
+    slot.binary = binary;
+    slot.decoded = decoded;
+    slot.client = client;
+    slot.queuedNanos = System.nanoTime();
+    slot.sequence = seq;
+    slot.owner.set(seq);
+    if (notification) {
+      client.addNotification(seq);
+    }
+    publish(seq);
+  }
+
+  // decode the message within worker thread, returns null if not decoded.
+  private Object decode(WebSocket conn, String text, ByteBuffer binary) {
+    try {
+      return text != null
+        ? protocol.decode(conn, text)
+        : protocol.decode(conn, binary);
+    } catch (Exception ex) {
+      LOG.error("websocket message decoding error.", ex);
+      return null;
+    }
+  }
+
+  // apply the overload policy, returns false if the message is not queued.
+  @SuppressWarnings("fallthrough")
+  private boolean admit(
+    WebSocket conn,
+    InboundQueues.Client client,
+    String text,
+    ByteBuffer binary,
+    boolean notification
   ) {
-    LOG.error(
-      "websocket event handling error. event:" + context.getEvent().toString(),
-      ex
-    );
+    while (client.pending.get() >= inbound.getMaxQueued()) {
+      switch (inbound.getPolicy()) {
+        case DROP_OLDEST_NOTIFICATION:
+          long oldest = client.pollNotification();
+          if (oldest >= 0) {
+            if (events.get(oldest).owner.compareAndSet(oldest, -1)) {
+              // cancelled before taken by consumer.
+              client.pending.decrementAndGet();
+              client.dropped.incrementAndGet();
+            }
+            continue;
+          }
+          if (notification) {
+            client.dropped.incrementAndGet();
+            return false;
+          }
+        // no notification to drop, reject the request.
+        case REJECT:
+          reject(conn, client, text, binary);
+          return false;
+        case PAUSE:
+        default:
+          // holds the worker thread, other clients of the same worker
+          // thread are also paused.
+          if (!conn.isOpen() || events.isClosed()) {
+            return false;
+          }
+          executor.signal();
+          LockSupport.parkNanos(PAUSE_NANOS);
+      }
+    }
+    client.queued();
+    return true;
+  }
+
+  // the shared ring is full, refuse the message without holding the worker.
+  private void overflow(
+    WebSocket conn,
+    InboundQueues.Client client,
+    String text,
+    ByteBuffer binary,
+    boolean notification
+  ) {
+    executor.signal();
+    if (notification) {
+      client.dropped.incrementAndGet();
+    } else {
+      reject(conn, client, text, binary);
+    }
+  }
+
+  private void reject(
+    WebSocket conn,
+    InboundQueues.Client client,
+    String text,
+    ByteBuffer binary
+  ) {
+    client.rejected.incrementAndGet();
+    if (text != null) {
+      protocol.reject(conn, text);
+    } else {
+      protocol.reject(conn, binary);
+    }
+  }
+
+  /**
+   * Handles a event slot within 'Control Surface Session' thread.
+   * @param slot
+   */
+  private void dispatch(WebSocketEventSlot slot) {
+    WebSocketEventSlot.Type type = slot.type;
+    WebSocket conn = slot.conn;
+    ClientHandshake handshake = slot.handshake;
+    String text = slot.text;
+    ByteBuffer binary = slot.binary;
+    Object decoded = slot.decoded;
+    int code = slot.code;
+    String reason = slot.reason;
+    boolean remote = slot.remote;
+    Exception exception = slot.exception;
+    InboundQueues.Client client = slot.client;
+    long sequence = slot.sequence;
+    long queuedNanos = slot.queuedNanos;
+    boolean taken = client == null || slot.take();
+    slot.clear();
+    if (client != null) {
+      if (!taken) {
+        // dropped by overload policy.
+        return;
+      }
+      client.taken(sequence);
+      inbound.handled(System.nanoTime() - queuedNanos, events.size());
+    }
+    try {
+      switch (type) {
+        case START:
+          protocol.handleStart(this);
+          break;
+        case OPEN:
+          protocol.handleOpen(conn, handshake);
+          break;
+        case CLOSE:
+          inbound.remove(conn);
+          protocol.handleClose(conn, code, reason, remote);
+          break;
+        case TEXT:
+          if (decoded != null) {
+            protocol.handleDecoded(conn, decoded);
+          } else {
+            protocol.handleMessage(conn, text);
+          }
+          break;
+        case BINARY:
+          if (decoded != null) {
+            protocol.handleDecoded(conn, decoded);
+          } else {
+            protocol.handleMessage(conn, binary);
+          }
+          break;
+        case ERROR:
+          protocol.handleError(conn, exception);
+          break;
+      }
+    } catch (Exception ex) {
+      LOG.error("websocket event handling error. event:" + type, ex);
+    }
   }
 
   private void start(ControllerHost host) {
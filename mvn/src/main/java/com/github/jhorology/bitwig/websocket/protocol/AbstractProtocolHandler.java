@@ -22,20 +22,22 @@
  */
 package com.github.jhorology.bitwig.websocket.protocol;
 
+import com.github.jhorology.bitwig.Config;
+import com.github.jhorology.bitwig.extension.ControlSurfaceSessionExecutor;
+import com.github.jhorology.bitwig.extension.ExecutionContext;
 import com.github.jhorology.bitwig.logging.LoggerFactory;
 import com.github.jhorology.bitwig.rpc.RpcRegistry;
-import com.github.jhorology.bitwig.websocket.BinaryMessageEvent;
-import com.github.jhorology.bitwig.websocket.CloseEvent;
-import com.github.jhorology.bitwig.websocket.ErrorEvent;
-import com.github.jhorology.bitwig.websocket.OpenEvent;
-import com.github.jhorology.bitwig.websocket.StartEvent;
-import com.github.jhorology.bitwig.websocket.StopEvent;
-import com.github.jhorology.bitwig.websocket.TextMessageEvent;
-import com.google.common.eventbus.Subscribe;
+import com.github.jhorology.bitwig.websocket.WebSocketRpcServer;
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
 import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
 import org.java_websocket.server.WebSocketServer;
 import org.slf4j.Logger;
 
@@ -58,6 +60,18 @@ public abstract class AbstractProtocolHandler implements ProtocolHandler {
 
   // this instance is implement PushModel interface or not.
   private final boolean pushModel = this instanceof PushModel;
+  private final OutboundBuffers outbound = new OutboundBuffers();
+  // null if messages are serialized within 'Control Surface Session' thread.
+  private volatile OutboundEncoder encoder;
+  // null if notifications are not batched.
+  private NotificationBatches batches;
+  private boolean doNotUseRequestFlush;
+  // null if requests are not time-sliced.
+  private ControlSurfaceSessionExecutor executor;
+  private final BiFunction<NotificationTemplate, Object[], Object> notificationEncoder =
+    this::encodeNotification;
+  private final BiFunction<NotificationTemplate, Object[], Object> notificationRenderer =
+    this::renderNotification;
 
   @Override
   public void setRpcRegistry(RpcRegistry registry) {
@@ -69,82 +83,236 @@ public abstract class AbstractProtocolHandler implements ProtocolHandler {
     return registry != null;
   }
 
-  @Subscribe
-  public final void onStart(StartEvent e) {
-    server = e.getWebSocketServer();
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final void handleStart(WebSocketServer server) {
+    this.server = server;
+    ExecutionContext<?> context = ExecutionContext.getContext();
+    if (context != null && context.getConfig() instanceof Config) {
+      Config config = (Config) context.getConfig();
+      executor = context.getAsyncExecutor();
+      outbound.configure(
+        config.getOutboundHighWatermark(),
+        config.getOutboundLowWatermark(),
+        config.getOutboundDrainIntervalMillis()
+      );
+      if (config.isAsyncSerialization()) {
+        encoder = new OutboundEncoder();
+        outbound.setSender(encoder);
+      }
+      if (config.isNotificationBatching()) {
+        batches = new NotificationBatches();
+        doNotUseRequestFlush = config.isDoNotUseRequestFlush();
+      }
+    }
     onStart();
   }
 
-  @Subscribe
-  public final void onStop(StopEvent e) {}
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final void handleStop() {
+    executor = null;
+    if (batches != null) {
+      batches.clear();
+      batches = null;
+    }
+    outbound.clear();
+    outbound.setSender(null);
+    OutboundEncoder encoder = this.encoder;
+    if (encoder != null) {
+      this.encoder = null;
+      encoder.shutdown();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void handleFlush() {
+    if (batches != null) {
+      batches.emitAll(this::sendBatch);
+    }
+  }
 
-  @Subscribe
-  public void onOpen(OpenEvent e) {
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void handleOpen(WebSocket conn, ClientHandshake handshake) {
     if (LOG.isTraceEnabled()) {
       LOG.trace(
         "new connection. conn:{}\n\tremoteAddress:{}\n\tresourceDescriptor:{}",
-        e.getConnection(),
-        remoteAddress(e.getConnection()),
-        e.getHandshake().getResourceDescriptor()
+        conn,
+        remoteAddress(conn),
+        handshake.getResourceDescriptor()
       );
     }
-    onOpen(e.getConnection(), e.getHandshake());
+    onOpen(conn, handshake);
   }
 
-  @Subscribe
-  public void onColse(CloseEvent e) {
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void handleClose(
+    WebSocket conn,
+    int code,
+    String reason,
+    boolean remote
+  ) {
     if (LOG.isTraceEnabled()) {
       LOG.trace(
         "connection closed. conn:{}\n\tcode:{}\n\treason:{}\n\tremote:{}",
-        e.getConnection(),
-        e.getCode(),
-        e.getReason(),
-        e.isRemote()
+        conn,
+        code,
+        reason,
+        remote
       );
     }
     if (this instanceof PushModel && registry != null) {
-      registry.disconnect(e.getConnection());
+      registry.disconnect(conn);
     }
-    onClose(e.getConnection(), e.getCode(), e.getReason(), e.isRemote());
+    outbound.remove(conn);
+    OutboundEncoder encoder = this.encoder;
+    if (encoder != null) {
+      encoder.remove(conn);
+    }
+    if (batches != null) {
+      batches.remove(conn);
+    }
+    onClose(conn, code, reason, remote);
   }
 
-  @Subscribe
-  public void onMessage(TextMessageEvent e) {
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void handleMessage(WebSocket conn, String message) {
     if (LOG.isTraceEnabled()) {
       LOG.trace(
         "a message recieved from:{}\n  --> {}",
-        remoteAddress(e.getConnection()),
-        e.getMessage()
+        remoteAddress(conn),
+        message
       );
     }
-    RequestContext.init(e.getConnection(), pushModel ? (PushModel) this : null);
-    onMessage(e.getConnection(), e.getMessage());
-    afterRequest(e.getConnection());
+    emitBatch(conn);
+    RequestContext.init(conn, pushModel ? (PushModel) this : null);
+    try {
+      onMessage(conn, message);
+      afterRequest(conn);
+    } finally {
+      RequestContext.release();
+    }
   }
 
-  @Subscribe
-  public void onMessage(BinaryMessageEvent e) {
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void handleMessage(WebSocket conn, ByteBuffer message) {
     if (LOG.isTraceEnabled()) {
       LOG.trace(
         "a message recieved from:{}\n  --> {}",
-        remoteAddress(e.getConnection()),
-        e.getMessage()
+        remoteAddress(conn),
+        message
       );
     }
-    RequestContext.init(e.getConnection(), pushModel ? (PushModel) this : null);
-    onMessage(e.getConnection(), e.getMessage());
-    afterRequest(e.getConnection());
+    emitBatch(conn);
+    RequestContext.init(conn, pushModel ? (PushModel) this : null);
+    try {
+      onMessage(conn, message);
+      afterRequest(conn);
+    } finally {
+      RequestContext.release();
+    }
   }
 
-  @Subscribe
-  public void onError(ErrorEvent e) {
-    LOG.error(
-      "error occurred remoteAddress:" + remoteAddress(e.getConnection()),
-      e.getException()
-    );
-    onError(e.getConnection(), e.getException());
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void handleDecoded(WebSocket conn, Object decoded) {
+    if (LOG.isTraceEnabled()) {
+      LOG.trace(
+        "a decoded message recieved from:{}\n  --> {}",
+        remoteAddress(conn),
+        decoded
+      );
+    }
+    emitBatch(conn);
+    RequestContext.init(conn, pushModel ? (PushModel) this : null);
+    try {
+      onDecoded(conn, decoded);
+      afterRequest(conn);
+    } finally {
+      RequestContext.release();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void handleError(WebSocket conn, Exception ex) {
+    LOG.error("error occurred remoteAddress:" + remoteAddress(conn), ex);
+    onError(conn, ex);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isDiscardable(String message) {
+    return false;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isDiscardable(ByteBuffer message) {
+    return false;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object decode(WebSocket conn, String message) {
+    return null;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object decode(WebSocket conn, ByteBuffer message) {
+    return null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onDecoded(WebSocket conn, Object decoded) {}
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void reject(WebSocket conn, String message) {}
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void reject(WebSocket conn, ByteBuffer message) {}
+
   /**
    * Sends the messages to contextual client.
    * @param message
@@ -159,6 +327,15 @@ public abstract class AbstractProtocolHandler implements ProtocolHandler {
    * @param conn
    */
   protected void send(String message, WebSocket conn) {
+    OutboundEncoder encoder = this.encoder;
+    if (encoder != null) {
+      encoder.execute(conn, () -> sendNow(message, conn));
+    } else {
+      sendNow(message, conn);
+    }
+  }
+
+  private void sendNow(String message, WebSocket conn) {
     conn.send(message);
     if (LOG.isTraceEnabled()) {
       LOG.trace(
@@ -169,13 +346,65 @@ public abstract class AbstractProtocolHandler implements ProtocolHandler {
     }
   }
 
+  /**
+   * Sends the keyed messages to specified client.<br>
+   * If the client is congested, the message is held in outbound buffer and
+   * replaces a pending message of the same key.
+   * @param message
+   * @param key the key of message, or null if message can't be replaced.
+   * @param conn
+   */
+  protected void send(String message, Object key, WebSocket conn) {
+    if (!conn.isOpen() || (key != null && outbound.offer(conn, key, message))) {
+      return;
+    }
+    if (batches != null && key != null) {
+      batch(conn, message);
+      return;
+    }
+    send(message, conn);
+  }
+
   /**
    * Push the messages to specified clients.
    * @param message
    * @param clients
    */
   protected void push(String message, Collection<WebSocket> clients) {
-    server.broadcast(message, clients);
+    push(message, null, clients);
+  }
+
+  /**
+   * Push the keyed messages to specified clients.<br>
+   * If the client is congested, the message is held in outbound buffer and
+   * replaces a pending message of the same key.
+   * @param message
+   * @param key
+   * @param clients
+   */
+  protected void push(
+    String message,
+    Object key,
+    Collection<WebSocket> clients
+  ) {
+    OutboundEncoder encoder = this.encoder;
+    if (batches != null && key != null) {
+      offer(message, key, clients).forEach(conn -> batch(conn, message));
+    } else if (encoder != null) {
+      List<WebSocket> targets = offer(message, key, clients);
+      encoder.execute(targets, () -> pushNow(message, targets));
+    } else {
+      FrameBroadcaster.broadcast(server, message, clients, outbound, key);
+      traceBroadcast(message, clients);
+    }
+  }
+
+  private void pushNow(String message, Collection<WebSocket> clients) {
+    FrameBroadcaster.broadcast(server, message, clients);
+    traceBroadcast(message, clients);
+  }
+
+  private void traceBroadcast(String message, Collection<WebSocket> clients) {
     if (LOG.isTraceEnabled()) {
       LOG.trace(
         "broadcast message to {} clients.\n  <-- {}",
@@ -190,7 +419,16 @@ public abstract class AbstractProtocolHandler implements ProtocolHandler {
    * @param message
    */
   protected void broadcast(String message) {
-    server.broadcast(message);
+    OutboundEncoder encoder = this.encoder;
+    if (encoder != null) {
+      encoder.execute(() -> broadcastNow(message));
+    } else {
+      broadcastNow(message);
+    }
+  }
+
+  private void broadcastNow(String message) {
+    FrameBroadcaster.broadcast(server, message, server.getConnections());
     if (LOG.isTraceEnabled()) {
       LOG.trace(
         "broadcast message to all {} clients.\n  <-- {}",
@@ -200,6 +438,459 @@ public abstract class AbstractProtocolHandler implements ProtocolHandler {
     }
   }
 
+  /**
+   * Sends the binary messages to specified client.
+   * @param message
+   * @param conn
+   */
+  protected void send(ByteBuffer message, WebSocket conn) {
+    OutboundEncoder encoder = this.encoder;
+    if (encoder != null) {
+      encoder.execute(conn, () -> sendNow(message, conn));
+    } else {
+      sendNow(message, conn);
+    }
+  }
+
+  private void sendNow(ByteBuffer message, WebSocket conn) {
+    FrameBroadcaster.send(conn, message);
+    if (LOG.isTraceEnabled()) {
+      LOG.trace(
+        "binary message sended to {}\n  <-- {} bytes",
+        conn.getRemoteSocketAddress(),
+        message.remaining()
+      );
+    }
+  }
+
+  /**
+   * Sends the keyed binary messages to specified client.<br>
+   * If the client is congested, the message is held in outbound buffer and
+   * replaces a pending message of the same key.
+   * @param message
+   * @param key the key of message, or null if message can't be replaced.
+   * @param conn
+   */
+  protected void send(ByteBuffer message, Object key, WebSocket conn) {
+    if (!conn.isOpen() || (key != null && outbound.offer(conn, key, message))) {
+      return;
+    }
+    if (batches != null && key != null) {
+      batch(conn, message);
+      return;
+    }
+    send(message, conn);
+  }
+
+  /**
+   * Push the keyed binary messages to specified clients.<br>
+   * If the client is congested, the message is held in outbound buffer and
+   * replaces a pending message of the same key.
+   * @param message
+   * @param key the key of message, or null if message can't be replaced.
+   * @param clients
+   */
+  protected void push(
+    ByteBuffer message,
+    Object key,
+    Collection<WebSocket> clients
+  ) {
+    OutboundEncoder encoder = this.encoder;
+    if (batches != null && key != null) {
+      offer(message, key, clients).forEach(conn -> batch(conn, message));
+    } else if (encoder != null) {
+      List<WebSocket> targets = offer(message, key, clients);
+      encoder.execute(targets, () -> pushNow(message, targets));
+    } else {
+      FrameBroadcaster.broadcast(server, message, clients, outbound, key);
+      traceBroadcast(message, clients);
+    }
+  }
+
+  private void pushNow(ByteBuffer message, Collection<WebSocket> clients) {
+    FrameBroadcaster.broadcast(server, message, clients);
+    traceBroadcast(message, clients);
+  }
+
+  private void traceBroadcast(
+    ByteBuffer message,
+    Collection<WebSocket> clients
+  ) {
+    if (LOG.isTraceEnabled()) {
+      LOG.trace(
+        "broadcast binary message to {} clients.\n  <-- {} bytes",
+        clients.size(),
+        message.remaining()
+      );
+    }
+  }
+
+  /**
+   * Broadcast the binary message.
+   * @param message
+   */
+  protected void broadcast(ByteBuffer message) {
+    OutboundEncoder encoder = this.encoder;
+    if (encoder != null) {
+      encoder.execute(() -> broadcastNow(message));
+    } else {
+      broadcastNow(message);
+    }
+  }
+
+  private void broadcastNow(ByteBuffer message) {
+    FrameBroadcaster.broadcast(server, message, server.getConnections());
+    if (LOG.isTraceEnabled()) {
+      LOG.trace(
+        "broadcast binary message to all {} clients.\n  <-- {} bytes",
+        server.getConnections().size(),
+        message.remaining()
+      );
+    }
+  }
+
+  /**
+   * Consume a unit of the time-slice budget of executor for a part of
+   * request, e.g. each request of batch.
+   * @return false if the remaining parts should be continued by
+   *         {@link #continueRequest(WebSocket, Runnable)}.
+   */
+  protected boolean consumeBudget() {
+    ControlSurfaceSessionExecutor executor = this.executor;
+    return executor == null || executor.consumeBudget();
+  }
+
+  /**
+   * Continue the remaining parts of request on next drain of executor.<br>
+   * This method must be called within the request. The task runs within the
+   * request context of the client, the notifications that have been added to
+   * the current context are carried over, so that they are sent after the
+   * response of the last part.
+   * @param conn
+   * @param task
+   */
+  protected void continueRequest(WebSocket conn, Runnable task) {
+    ControlSurfaceSessionExecutor executor = this.executor;
+    if (executor == null) {
+      // not time-sliced, still within the current request.
+      task.run();
+      return;
+    }
+    List<Notification> current = RequestContext
+      .getContext()
+      .getNotifications();
+    List<Notification> carried = new ArrayList<>(current);
+    current.clear();
+    Runnable request = () -> {
+      RequestContext.init(conn, pushModel ? (PushModel) this : null);
+      RequestContext.getContext().getNotifications().addAll(carried);
+      try {
+        task.run();
+        afterRequest(conn);
+      } finally {
+        RequestContext.release();
+      }
+    };
+    executor.execute(request);
+  }
+
+  /**
+   * Encode a notification that is filled template with parameters.
+   * @param template
+   * @param params
+   * @return String or ByteBuffer message, or null if not supported.
+   */
+  protected Object encodeNotification(
+    NotificationTemplate template,
+    Object[] params
+  ) {
+    return null;
+  }
+
+  /**
+   * Capture a snapshot of the parameters of notification for encoding on
+   * encoder thread.<br>
+   * This method is called within 'Control Surface Session' thread only if
+   * asynchronous serialization is enabled.
+   * @param params
+   * @return the parameters that don't touch Bitwig API objects.
+   */
+  protected Object[] snapshotParams(Object[] params) {
+    return params;
+  }
+
+  /**
+   * Sends a notification that is filled template with parameters to
+   * specified client.<br>
+   * The template is used as the key of outbound buffer. A pending
+   * notification is replaced by newer one, but the deltas of collection
+   * value are merged into the pending ones.
+   * @param template
+   * @param params
+   * @param conn
+   */
+  protected void pushTemplate(
+    NotificationTemplate template,
+    Object[] params,
+    WebSocket conn
+  ) {
+    if (!template.isDelta()) {
+      sendMessage(renderNotification(template, params), template, conn);
+    } else if (conn.isOpen() && !holdDeltas(template, params, conn)) {
+      sendMessage(renderNotification(template, params), conn);
+    }
+  }
+
+  /**
+   * Sends a notification that is filled template with parameters to
+   * specified clients.
+   * @param template
+   * @param params
+   * @param clients
+   * @see #pushTemplate(NotificationTemplate, Object[], WebSocket)
+   */
+  protected void pushTemplate(
+    NotificationTemplate template,
+    Object[] params,
+    Collection<WebSocket> clients
+  ) {
+    if (!template.isDelta()) {
+      pushMessage(renderNotification(template, params), template, clients);
+      return;
+    }
+    List<WebSocket> targets = null;
+    for (WebSocket conn : clients) {
+      if (conn.isOpen() && !holdDeltas(template, params, conn)) {
+        if (targets == null) {
+          targets = new ArrayList<>(clients.size());
+        }
+        targets.add(conn);
+      }
+    }
+    if (targets != null) {
+      pushMessage(renderNotification(template, params), null, targets);
+    }
+  }
+
+  /**
+   * Hold the deltas in outbound buffer or in a batch of the client.
+   * @return true if deltas were held, false if deltas should be sent now.
+   */
+  private boolean holdDeltas(
+    NotificationTemplate template,
+    Object[] params,
+    WebSocket conn
+  ) {
+    if (outbound.offerDeltas(conn, template, params, notificationRenderer)) {
+      return true;
+    }
+    if (batches != null) {
+      if (batches.addDeltas(conn, template, params, notificationRenderer)) {
+        requestBatchFlush();
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Render a notification message within 'Control Surface Session' thread.
+   * @return the encoded message, or a deferred notification that is encoded
+   *         on encoder thread if asynchronous serialization is enabled.
+   */
+  private Object renderNotification(
+    NotificationTemplate template,
+    Object[] params
+  ) {
+    if (encoder == null) {
+      return encodeNotification(template, params);
+    }
+    return new DeferredNotification(
+      template,
+      snapshotParams(params),
+      notificationEncoder
+    );
+  }
+
+  private void sendMessage(Object message, Object key, WebSocket conn) {
+    if (message instanceof DeferredNotification) {
+      send((DeferredNotification) message, key, conn);
+    } else if (message instanceof ByteBuffer) {
+      send((ByteBuffer) message, key, conn);
+    } else if (message != null) {
+      send((String) message, key, conn);
+    }
+  }
+
+  private void pushMessage(
+    Object message,
+    Object key,
+    Collection<WebSocket> clients
+  ) {
+    if (message instanceof DeferredNotification) {
+      push((DeferredNotification) message, key, clients);
+    } else if (message instanceof ByteBuffer) {
+      push((ByteBuffer) message, key, clients);
+    } else if (message != null) {
+      push((String) message, key, clients);
+    }
+  }
+
+  private void send(
+    DeferredNotification message,
+    Object key,
+    WebSocket conn
+  ) {
+    if (!conn.isOpen() || (key != null && outbound.offer(conn, key, message))) {
+      return;
+    }
+    if (batches != null && key != null) {
+      batch(conn, message);
+      return;
+    }
+    sendMessage(message, conn);
+  }
+
+  private void push(
+    DeferredNotification message,
+    Object key,
+    Collection<WebSocket> clients
+  ) {
+    if (batches != null && key != null) {
+      offer(message, key, clients).forEach(conn -> batch(conn, message));
+      return;
+    }
+    List<WebSocket> targets = offer(message, key, clients);
+    serialize(
+      targets,
+      () -> pushEncoded(DeferredNotification.encode(message), targets)
+    );
+  }
+
+  private void pushEncoded(Object message, Collection<WebSocket> clients) {
+    if (message instanceof ByteBuffer) {
+      pushNow((ByteBuffer) message, clients);
+    } else if (message != null) {
+      pushNow((String) message, clients);
+    }
+  }
+
+  /**
+   * Returns a report of outbound buffers.
+   * @return
+   */
+  protected Object reportOutbound() {
+    Map<String, Object> report = outbound.report();
+    OutboundEncoder encoder = this.encoder;
+    report.put("encoder", encoder != null ? encoder.report() : null);
+    report.put("batches", batches != null ? batches.report() : null);
+    report.put(
+      "compression",
+      server instanceof WebSocketRpcServer
+        ? ((WebSocketRpcServer) server).reportCompression()
+        : null
+    );
+    return report;
+  }
+
+  /**
+   * Returns whether the messages are serialized and sent on encoder thread.
+   * @return
+   */
+  protected boolean isAsyncSerialization() {
+    return encoder != null;
+  }
+
+  /**
+   * Runs the serialization task on encoder thread, or immediately if
+   * asynchronous serialization is disabled.<br>
+   * The task must not touch Bitwig API objects, the values should be
+   * captured as snapshot before.
+   * @param task
+   */
+  protected void serialize(Runnable task) {
+    OutboundEncoder encoder = this.encoder;
+    if (encoder != null) {
+      encoder.execute(task);
+    } else {
+      task.run();
+    }
+  }
+
+  /**
+   * Send the pending messages of the client held in outbound buffer.<br>
+   * This method should be called within 'Control Surface Session' thread
+   * before an unkeyed message (e.g. response) is serialized, so that it
+   * doesn't overtake the older notifications.
+   * @param conn
+   */
+  protected void flushPending(WebSocket conn) {
+    outbound.flush(conn);
+  }
+
+  /**
+   * Send the pending messages of the clients held in outbound buffer.
+   * @param clients
+   * @see #flushPending(WebSocket)
+   */
+  protected void flushPending(Collection<WebSocket> clients) {
+    for (WebSocket conn : clients) {
+      outbound.flush(conn);
+    }
+  }
+
+  /**
+   * Send the pending messages of all clients held in outbound buffer.
+   * @see #flushPending(WebSocket)
+   */
+  protected void flushPending() {
+    outbound.flushAll();
+  }
+
+  /**
+   * Runs the serialization task for the client on encoder thread, or
+   * immediately if asynchronous serialization is disabled.<br>
+   * The task is counted as a queued message of the client until it runs.
+   * @param conn
+   * @param task
+   * @see #serialize(Runnable)
+   */
+  protected void serialize(WebSocket conn, Runnable task) {
+    OutboundEncoder encoder = this.encoder;
+    if (encoder != null) {
+      encoder.execute(conn, task);
+    } else {
+      task.run();
+    }
+  }
+
+  /**
+   * Runs the serialization task for the clients on encoder thread, or
+   * immediately if asynchronous serialization is disabled.<br>
+   * The task is counted as a queued message of the clients until it runs.
+   * @param clients
+   * @param task
+   * @see #serialize(Runnable)
+   */
+  protected void serialize(Collection<WebSocket> clients, Runnable task) {
+    OutboundEncoder encoder = this.encoder;
+    if (encoder != null) {
+      encoder.execute(clients, task);
+    } else {
+      task.run();
+    }
+  }
+
+  /**
+   * Returns a report of inbound queues.
+   * @return
+   */
+  protected Object reportInbound() {
+    return server instanceof WebSocketRpcServer
+      ? ((WebSocketRpcServer) server).reportInbound()
+      : null;
+  }
+
   /**
    *  processing after request/response sequence.
    */
@@ -208,10 +899,110 @@ public abstract class AbstractProtocolHandler implements ProtocolHandler {
       List<Notification> notifications = RequestContext
         .getContext()
         .getNotifications();
-      if (notifications != null && !notifications.isEmpty()) {
-        notifications.forEach(n -> ((PushModel) this).push(n, conn));
+      int size = notifications.size();
+      for (int i = 0; i < size; i++) {
+        ((PushModel) this).push(notifications.get(i), conn);
+      }
+    }
+  }
+
+  /**
+   * Join the batched notifications into a single message.<br>
+   * Notifications are sent one by one if the protocol can't join them.
+   * @param messages the encoded notifications, String or ByteBuffer.
+   * @return null if not supported.
+   */
+  protected Object joinNotifications(List<Object> messages) {
+    return null;
+  }
+
+  /**
+   * Emit the batched notifications of the client before other messages.
+   */
+  private void emitBatch(WebSocket conn) {
+    if (batches != null) {
+      batches.emit(conn, this::sendBatch);
+    }
+  }
+
+  private void batch(WebSocket conn, Object message) {
+    if (batches.add(conn, message)) {
+      requestBatchFlush();
+    }
+  }
+
+  /**
+   * first notification in this cycle, make sure that flush will come.
+   */
+  private void requestBatchFlush() {
+    ExecutionContext<?> context = ExecutionContext.getContext();
+    if (context == null) {
+      return;
+    }
+    if (doNotUseRequestFlush) {
+      context.getHost().scheduleTask(this::handleFlush, 0L);
+    } else {
+      context.getHost().requestFlush();
+    }
+  }
+
+  private void sendBatch(WebSocket conn, List<Object> batch) {
+    if (encoder == null) {
+      sendJoined(conn, batch);
+      return;
+    }
+    // deferred notifications are encoded and joined on encoder thread.
+    serialize(
+      conn,
+      () -> {
+        batch.replaceAll(DeferredNotification::encode);
+        batch.removeIf(Objects::isNull);
+        sendJoined(conn, batch);
+      }
+    );
+  }
+
+  private void sendJoined(WebSocket conn, List<Object> batch) {
+    Object joined = batch.size() > 1 ? joinNotifications(batch) : null;
+    if (joined != null) {
+      sendMessage(joined, conn);
+    } else {
+      batch.forEach(message -> sendMessage(message, conn));
+    }
+  }
+
+  private void sendMessage(Object message, WebSocket conn) {
+    if (message instanceof DeferredNotification) {
+      serialize(
+        conn,
+        () -> sendMessage(DeferredNotification.encode(message), conn)
+      );
+    } else if (message instanceof ByteBuffer) {
+      send((ByteBuffer) message, conn);
+    } else if (message != null) {
+      send((String) message, conn);
+    }
+  }
+
+  /**
+   * Offer a keyed message to the outbound buffers of the clients.
+   * @return the clients that the message should be sent now.
+   */
+  private List<WebSocket> offer(
+    Object message,
+    Object key,
+    Collection<WebSocket> clients
+  ) {
+    List<WebSocket> targets = new ArrayList<>(clients.size());
+    for (WebSocket conn : clients) {
+      if (!conn.isOpen()) {
+        continue;
+      }
+      if (key == null || !outbound.offer(conn, key, message)) {
+        targets.add(conn);
       }
     }
+    return targets;
   }
 
   private InetSocketAddress remoteAddress(WebSocket conn) {
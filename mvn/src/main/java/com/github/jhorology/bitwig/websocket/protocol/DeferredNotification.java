@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.websocket.protocol;
+
+import java.util.function.BiFunction;
+
+/**
+ * A notification that is encoded on encoder thread.<br>
+ * The parameters are captured as snapshot within "Control Surface Session"
+ * thread, then the template is filled with them when the notification is
+ * sent. It can be held in outbound buffer or in a batch same as encoded
+ * messages.
+ */
+final class DeferredNotification {
+
+  private final NotificationTemplate template;
+  private final Object[] params;
+  private final BiFunction<NotificationTemplate, Object[], Object> encoder;
+
+  /**
+   * Constructor.
+   * @param template
+   * @param params the snapshot of parameters.
+   * @param encoder the function to encode a notification.
+   */
+  DeferredNotification(
+    NotificationTemplate template,
+    Object[] params,
+    BiFunction<NotificationTemplate, Object[], Object> encoder
+  ) {
+    this.template = template;
+    this.params = params;
+    this.encoder = encoder;
+  }
+
+  /**
+   * Encode the message if it's deferred.<br>
+   * This method should be called on encoder thread.
+   * @param message
+   * @return String or ByteBuffer message, or null if not supported.
+   */
+  static Object encode(Object message) {
+    if (message instanceof DeferredNotification) {
+      DeferredNotification n = (DeferredNotification) message;
+      return n.encoder.apply(n.template, n.params);
+    }
+    return message;
+  }
+}
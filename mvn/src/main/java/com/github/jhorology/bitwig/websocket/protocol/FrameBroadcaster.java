@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.websocket.protocol;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
+import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.exceptions.WebsocketNotConnectedException;
+import org.java_websocket.extensions.DefaultExtension;
+import org.java_websocket.framing.Framedata;
+import org.java_websocket.server.WebSocketServer;
+
+/**
+ * A utility class for sending a message to many clients.<br>
+ * The message is either a text (String) or a binary (ByteBuffer).<br>
+ * The message is encoded into a single WebSocket frame once, then the same
+ * frame is queued to the all connections that have an equivalent draft.
+ * <pre>
+ * WebSocketServer#broadcast shares the Framedata between clients, but
+ * WebSocketImpl#sendFrame still builds the frame buffer for each client.
+ * </pre>
+ */
+final class FrameBroadcaster {
+
+  // private constructor prevents instantiation
+  private FrameBroadcaster() {}
+
+  /**
+   * Sends a message to specified clients.
+   * @param server
+   * @param message
+   * @param clients
+   */
+  static void broadcast(
+    WebSocketServer server,
+    Object message,
+    Collection<WebSocket> clients
+  ) {
+    broadcast(server, message, clients, null, null);
+  }
+
+  /**
+   * Sends a keyed message to specified clients.<br>
+   * The message is held in outbound buffer for the congested clients.
+   * @param server
+   * @param message
+   * @param clients
+   * @param outbound
+   * @param key the key of message, or null if message can't be replaced.
+   */
+  static void broadcast(
+    WebSocketServer server,
+    Object message,
+    Collection<WebSocket> clients,
+    OutboundBuffers outbound,
+    Object key
+  ) {
+    Draft frameDraft = null;
+    ByteBuffer frame = null;
+    for (WebSocket conn : clients) {
+      if (!conn.isOpen()) {
+        continue;
+      }
+      if (key != null && outbound.offer(conn, key, message)) {
+        continue;
+      }
+      Draft draft = conn.getDraft();
+      if (server == null || !isShareable(conn, draft)) {
+        send(conn, message);
+        continue;
+      }
+      if (frame == null || !draft.equals(frameDraft)) {
+        frame = encode(draft, message);
+        frameDraft = draft;
+      }
+      if (frame == null) {
+        send(conn, message);
+        continue;
+      }
+      // each connection consumes it's own view of the shared frame.
+      ((WebSocketImpl) conn).outQueue.add(frame.duplicate());
+      server.onWriteDemand(conn);
+    }
+  }
+
+  /**
+   * Compressed frames depend on the state of each connection.
+   */
+  private static boolean isShareable(WebSocket conn, Draft draft) {
+    return (
+      conn instanceof WebSocketImpl &&
+      draft instanceof Draft_6455 &&
+      ((Draft_6455) draft).getExtension().getClass() == DefaultExtension.class
+    );
+  }
+
+  private static ByteBuffer encode(Draft draft, Object message) {
+    List<Framedata> frames = message instanceof ByteBuffer
+      ? draft.createFrames(((ByteBuffer) message).duplicate(), false)
+      : draft.createFrames((String) message, false);
+    if (frames.size() != 1) {
+      return null;
+    }
+    return draft.createBinaryFrame(frames.get(0));
+  }
+
+  /**
+   * Sends a message to the client.
+   * @param conn
+   * @param message
+   */
+  static void send(WebSocket conn, Object message) {
+    try {
+      if (message instanceof ByteBuffer) {
+        // the payload is consumed by framing.
+        conn.send(((ByteBuffer) message).duplicate());
+      } else {
+        conn.send((String) message);
+      }
+    } catch (WebsocketNotConnectedException ex) {
+      // same as WebSocketServer#broadcast, ignore closing connection.
+    }
+  }
+}
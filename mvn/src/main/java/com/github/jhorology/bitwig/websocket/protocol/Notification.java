@@ -10,6 +10,7 @@ public class Notification {
 
   private String notification;
   private Object[] params;
+  private final boolean flattenParams;
 
   /**
    * construct a notification message.
@@ -25,8 +26,23 @@ public class Notification {
    * @param params       The array of parameters.
    */
   public Notification(String notification, Object[] params) {
+    this(notification, params, true);
+  }
+
+  /**
+   * construct a notification message with message and parameters.
+   * @param notification The notification message. Basically use this as event name.
+   * @param params       The array of parameters.
+   * @param flattenParams whether a single object parameter is sent as params itself.
+   */
+  public Notification(
+    String notification,
+    Object[] params,
+    boolean flattenParams
+  ) {
     this.notification = notification;
     this.params = params;
+    this.flattenParams = flattenParams;
   }
 
   /**
@@ -60,4 +76,13 @@ public class Notification {
   public void setParams(Object[] params) {
     this.params = params;
   }
+
+  /**
+   * Returns whether a single object parameter is sent as params itself.<br>
+   * e.g.) params:[{a:1, b:2}] -> params:{a:1, b:2}
+   * @return
+   */
+  public boolean isFlattenParams() {
+    return flattenParams;
+  }
 }
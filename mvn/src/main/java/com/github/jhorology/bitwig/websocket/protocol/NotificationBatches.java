@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.websocket.protocol;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import org.java_websocket.WebSocket;
+
+/**
+ * Per-connection batches of notifications that are generated during a
+ * flush cycle of extension.<br>
+ * Each batch is emitted as a single message at the end of the cycle.
+ * The deltas of collection value are merged per template within a batch,
+ * they are rendered when the batch is emitted.<br>
+ * This class assumes that all methods are called from within "Control Surface Session" thread.
+ */
+class NotificationBatches {
+
+  private final Map<WebSocket, List<Object>> batches;
+  // pending deltas of each batch by template.
+  private final Map<WebSocket, Map<Object, PendingDeltas>> deltas;
+  private long batched;
+  private long emitted;
+  private int maxBatchSize;
+
+  /**
+   * Constructor.
+   */
+  NotificationBatches() {
+    batches = new LinkedHashMap<>();
+    deltas = new HashMap<>();
+  }
+
+  /**
+   * Add a notification message to the batch of the connection.
+   * @param conn
+   * @param message
+   * @return true if this is the first message since last emission.
+   */
+  boolean add(WebSocket conn, Object message) {
+    boolean first = batches.isEmpty();
+    batches.computeIfAbsent(conn, k -> new ArrayList<>()).add(message);
+    batched++;
+    return first;
+  }
+
+  /**
+   * Add the deltas of collection value to the batch of the connection.<br>
+   * The changed elements are merged into the deltas of the same template
+   * in the batch.
+   * @param conn
+   * @param template
+   * @param params the changed elements.
+   * @param renderer the function to render a notification message.
+   * @return true if this is the first message since last emission.
+   */
+  boolean addDeltas(
+    WebSocket conn,
+    NotificationTemplate template,
+    Object[] params,
+    BiFunction<NotificationTemplate, Object[], Object> renderer
+  ) {
+    Map<Object, PendingDeltas> pending = deltas.computeIfAbsent(
+      conn,
+      k -> new HashMap<>()
+    );
+    PendingDeltas d = pending.get(template);
+    if (d != null) {
+      d.merge(params);
+      return false;
+    }
+    d = new PendingDeltas(template, params, renderer);
+    pending.put(template, d);
+    return add(conn, d);
+  }
+
+  /**
+   * Emit the batch of the connection.
+   * @param conn
+   * @param emitter
+   */
+  void emit(WebSocket conn, BiConsumer<WebSocket, List<Object>> emitter) {
+    List<Object> batch = batches.remove(conn);
+    deltas.remove(conn);
+    if (batch != null) {
+      emit(conn, batch, emitter);
+    }
+  }
+
+  /**
+   * Emit all batches.
+   * @param emitter
+   */
+  void emitAll(BiConsumer<WebSocket, List<Object>> emitter) {
+    if (batches.isEmpty()) {
+      return;
+    }
+    // emitter may add new messages.
+    List<Map.Entry<WebSocket, List<Object>>> entries = new ArrayList<>(
+      batches.entrySet()
+    );
+    batches.clear();
+    deltas.clear();
+    entries.forEach(e -> emit(e.getKey(), e.getValue(), emitter));
+  }
+
+  /**
+   * Remove the batch of the connection.
+   * @param conn
+   */
+  void remove(WebSocket conn) {
+    batches.remove(conn);
+    deltas.remove(conn);
+  }
+
+  /**
+   * Remove all batches.
+   */
+  void clear() {
+    batches.clear();
+    deltas.clear();
+  }
+
+  /**
+   * create a report object for this class.
+   * @return
+   */
+  Object report() {
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("batched", batched);
+    report.put("emitted", emitted);
+    report.put("avgBatchSize", emitted > 0 ? (double) batched / emitted : 0d);
+    report.put("maxBatchSize", maxBatchSize);
+    report.put("pending", batches.size());
+    return report;
+  }
+
+  private void emit(
+    WebSocket conn,
+    List<Object> batch,
+    BiConsumer<WebSocket, List<Object>> emitter
+  ) {
+    emitted++;
+    maxBatchSize = Math.max(maxBatchSize, batch.size());
+    if (conn.isOpen()) {
+      batch.replaceAll(message ->
+        message instanceof PendingDeltas
+          ? ((PendingDeltas) message).render()
+          : message
+      );
+      emitter.accept(conn, batch);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.websocket.protocol;
+
+import org.apache.commons.lang3.ArrayUtils;
+
+/**
+ * A template of server-sent notification message that has a fixed name and
+ * fixed leading parameters, e.g. bank indexes of the event.<br>
+ * The protocol handler may extend this class to cache the serialized prefix.
+ */
+public class NotificationTemplate {
+
+  private final String notification;
+  private final Object[] leadingParams;
+  // each notification carries different changed elements.
+  private boolean delta;
+
+  /**
+   * Construct a template with notification message and leading parameters.
+   * @param notification The notification message. Basically use this as event name.
+   * @param leadingParams The array of parameters that precede the values.
+   */
+  public NotificationTemplate(String notification, Object[] leadingParams) {
+    this.notification = notification;
+    this.leadingParams = leadingParams;
+  }
+
+  /**
+   * Get a notification message.
+   * @return
+   */
+  public String getNotification() {
+    return notification;
+  }
+
+  /**
+   * Get an array of leading parameters.
+   * @return
+   */
+  public Object[] getLeadingParams() {
+    return leadingParams;
+  }
+
+  /**
+   * Mark this template as the deltas of collection value.<br>
+   * Each notification carries different changed elements, so it must not be
+   * replaced by newer one of the same template in outbound buffer or in a
+   * batch, the elements are merged instead. The params are always sent as an
+   * array, a single element is not flattened.
+   * @return this instance.
+   */
+  public NotificationTemplate markDelta() {
+    delta = true;
+    return this;
+  }
+
+  /**
+   * Returns whether this template is the deltas of collection value.
+   * @return
+   */
+  public boolean isDelta() {
+    return delta;
+  }
+
+  /**
+   * Create a new notification message filled with specified parameters.
+   * @param params The array of parameters that follow the leading parameters.
+   * @return
+   */
+  public Notification newNotification(Object[] params) {
+    if (leadingParams.length == 0) {
+      return new Notification(notification, params, !delta);
+    }
+    return new Notification(
+      notification,
+      ArrayUtils.addAll(leadingParams, params),
+      !delta
+    );
+  }
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.websocket.protocol;
+
+import com.github.jhorology.bitwig.extension.ExecutionContext;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketImpl;
+
+/**
+ * Per-connection outbound buffers with latest-value-wins semantics.<br>
+ * While the frames queued in the connection (including the messages queued
+ * in encoder) exceed the high watermark, the
+ * keyed messages (e.g. notifications of each event and bank index) are held
+ * in a pending buffer instead. A pending message that has not been sent yet
+ * is replaced by the newer one of the same key, except that the deltas of
+ * collection value are merged into the pending ones. The pending messages
+ * are sent when the queued frames fall under the low watermark.<br>
+ * This class assumes that all methods are called from within "Control Surface Session" thread.
+ */
+class OutboundBuffers {
+
+  /**
+   * default number of queued frames to start buffering.
+   */
+  static final int HIGH_WATERMARK = 32;
+
+  /**
+   * default number of queued frames to resume sending.
+   */
+  static final int LOW_WATERMARK = 8;
+
+  /**
+   * default interval in milliseconds of draining.
+   */
+  static final long DRAIN_INTERVAL = 10L;
+
+  private final Map<WebSocket, Buffer> buffers;
+  private int highWatermark = HIGH_WATERMARK;
+  private int lowWatermark = LOW_WATERMARK;
+  private long drainInterval = DRAIN_INTERVAL;
+  // sends the drained messages, null means sending immediately.
+  private OutboundEncoder sender;
+  private boolean drainScheduled;
+  private long dropped;
+
+  /**
+   * A pending buffer of a connection.
+   */
+  private static class Buffer {
+
+    private final Map<Object, Object> pending = new LinkedHashMap<>();
+    private long dropped;
+    private int maxPending;
+  }
+
+  /**
+   * Constructor.
+   */
+  OutboundBuffers() {
+    this.buffers = new HashMap<>();
+  }
+
+  /**
+   * Offer a keyed message to the pending buffer of the connection.
+   * @param conn
+   * @param key the key to replace a pending message.
+   * @param message
+   * @return true if message was buffered, false if message should be sent now.
+   */
+  boolean offer(WebSocket conn, Object key, Object message) {
+    if (!isHolding(conn)) {
+      return false;
+    }
+    Buffer buf = buffer(conn);
+    if (buf.pending.put(key, message) != null) {
+      buf.dropped++;
+      dropped++;
+    }
+    held(buf);
+    return true;
+  }
+
+  /**
+   * Offer the deltas of collection value to the pending buffer of the
+   * connection.<br>
+   * The changed elements are merged into the pending deltas of the same
+   * template.
+   * @param conn
+   * @param template the template of deltas, it's also used as the key.
+   * @param params the changed elements.
+   * @param renderer the function to render a notification message.
+   * @return true if deltas were buffered, false if deltas should be sent now.
+   */
+  boolean offerDeltas(
+    WebSocket conn,
+    NotificationTemplate template,
+    Object[] params,
+    BiFunction<NotificationTemplate, Object[], Object> renderer
+  ) {
+    if (!isHolding(conn)) {
+      return false;
+    }
+    Buffer buf = buffer(conn);
+    Object pending = buf.pending.get(template);
+    if (pending instanceof PendingDeltas) {
+      ((PendingDeltas) pending).merge(params);
+    } else {
+      buf.pending.put(template, new PendingDeltas(template, params, renderer));
+    }
+    held(buf);
+    return true;
+  }
+
+  /**
+   * Set the watermarks and the interval of draining.
+   * @param highWatermark number of queued frames to start buffering.
+   * @param lowWatermark number of queued frames to resume sending.
+   * @param drainInterval interval in milliseconds of draining.
+   */
+  void configure(int highWatermark, int lowWatermark, long drainInterval) {
+    this.highWatermark = Math.max(1, highWatermark);
+    this.lowWatermark =
+      Math.max(0, Math.min(lowWatermark, this.highWatermark - 1));
+    this.drainInterval = Math.max(1L, drainInterval);
+  }
+
+  /**
+   * Send the pending messages of the connection immediately.<br>
+   * An unkeyed message (e.g. response) should be sent after the pending
+   * messages those were offered before.
+   * @param conn
+   */
+  void flush(WebSocket conn) {
+    if (buffers.isEmpty()) {
+      return;
+    }
+    Buffer buf = buffers.get(conn);
+    if (buf == null || buf.pending.isEmpty()) {
+      return;
+    }
+    if (conn.isOpen()) {
+      buf.pending.values().forEach(message -> send(conn, message));
+    }
+    buf.pending.clear();
+  }
+
+  /**
+   * Send the pending messages of all connections immediately.
+   */
+  void flushAll() {
+    if (!buffers.isEmpty()) {
+      buffers.keySet().forEach(this::flush);
+    }
+  }
+
+  /**
+   * Set the encoder for sending drained messages.<br>
+   * Drained messages should be in line with the other messages, and the
+   * messages queued in encoder are counted as queued frames.
+   * @param sender null means sending immediately.
+   */
+  void setSender(OutboundEncoder sender) {
+    this.sender = sender;
+  }
+
+  /**
+   * Remove the buffer of the connection.
+   * @param conn
+   */
+  void remove(WebSocket conn) {
+    buffers.remove(conn);
+  }
+
+  /**
+   * Remove all buffers.
+   */
+  void clear() {
+    buffers.clear();
+  }
+
+  /**
+   * create a report object for this class.
+   * @return
+   */
+  Map<String, Object> report() {
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("highWatermark", highWatermark);
+    report.put("lowWatermark", lowWatermark);
+    report.put("drainInterval", drainInterval);
+    report.put("dropped", dropped);
+    List<Object> clients = new ArrayList<>();
+    buffers.forEach((conn, buf) -> {
+      Map<String, Object> client = new LinkedHashMap<>();
+      client.put(
+        "remoteAddress",
+        conn.getRemoteSocketAddress() != null
+          ? conn.getRemoteSocketAddress().toString()
+          : null
+      );
+      client.put("queuedFrames", queuedFrames(conn));
+      client.put("pending", buf.pending.size());
+      client.put("maxPending", buf.maxPending);
+      client.put("dropped", buf.dropped);
+      clients.add(client);
+    });
+    report.put("clients", clients);
+    return report;
+  }
+
+  private void drain() {
+    drainScheduled = false;
+    boolean remains = false;
+    for (Map.Entry<WebSocket, Buffer> e : buffers.entrySet()) {
+      WebSocket conn = e.getKey();
+      Buffer buf = e.getValue();
+      if (buf.pending.isEmpty()) {
+        continue;
+      }
+      if (!conn.isOpen()) {
+        buf.pending.clear();
+        continue;
+      }
+      int queued = queuedFrames(conn);
+      if (queued > lowWatermark) {
+        remains = true;
+        continue;
+      }
+      Iterator<Object> ite = buf.pending.values().iterator();
+      while (ite.hasNext() && queued < highWatermark) {
+        send(conn, ite.next());
+        ite.remove();
+        queued++;
+      }
+      remains |= !buf.pending.isEmpty();
+    }
+    if (remains) {
+      scheduleDrain();
+    }
+  }
+
+  private boolean isHolding(WebSocket conn) {
+    Buffer buf = buffers.get(conn);
+    return (
+      (buf != null && !buf.pending.isEmpty()) ||
+      queuedFrames(conn) >= highWatermark
+    );
+  }
+
+  private Buffer buffer(WebSocket conn) {
+    Buffer buf = buffers.get(conn);
+    if (buf == null) {
+      buf = new Buffer();
+      buffers.put(conn, buf);
+    }
+    return buf;
+  }
+
+  private void held(Buffer buf) {
+    buf.maxPending = Math.max(buf.maxPending, buf.pending.size());
+    scheduleDrain();
+  }
+
+  private void send(WebSocket conn, Object pending) {
+    Object message = pending instanceof PendingDeltas
+      ? ((PendingDeltas) pending).render()
+      : pending;
+    if (sender != null) {
+      sender.execute(
+        conn,
+        () -> sendEncoded(conn, DeferredNotification.encode(message))
+      );
+    } else {
+      sendEncoded(conn, message);
+    }
+  }
+
+  private static void sendEncoded(WebSocket conn, Object message) {
+    if (message != null) {
+      FrameBroadcaster.send(conn, message);
+    }
+  }
+
+  private void scheduleDrain() {
+    if (drainScheduled) {
+      return;
+    }
+    ExecutionContext<?> context = ExecutionContext.getContext();
+    if (context != null) {
+      drainScheduled = true;
+      context.getHost().scheduleTask(this::drain, drainInterval);
+    }
+  }
+
+  private int queuedFrames(WebSocket conn) {
+    int queued = conn instanceof WebSocketImpl
+      ? ((WebSocketImpl) conn).outQueue.size()
+      : 0;
+    OutboundEncoder sender = this.sender;
+    return sender != null ? queued + sender.queued(conn) : queued;
+  }
+}
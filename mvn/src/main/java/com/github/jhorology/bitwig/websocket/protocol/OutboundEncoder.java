@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.websocket.protocol;
+
+import com.github.jhorology.bitwig.logging.LoggerFactory;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.java_websocket.WebSocket;
+import org.java_websocket.exceptions.WebsocketNotConnectedException;
+import org.slf4j.Logger;
+
+/**
+ * A single thread stage for serializing and sending outbound messages.<br>
+ * Snapshots of values are captured within 'Control Surface Session' thread,
+ * then they are encoded and sent on the encoder thread. A single thread keeps
+ * the order of messages for each client. Tasks submitted from the encoder
+ * thread itself are run immediately.<br>
+ * The number of queued tasks is counted for each client, so that the
+ * outbound buffers can take the backlog of encoder into account.
+ */
+class OutboundEncoder implements Executor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(
+    OutboundEncoder.class
+  );
+
+  private static final long SHUTDOWN_TIMEOUT_MILLIS = 200L;
+
+  private final ExecutorService executor;
+  private volatile Thread thread;
+  private final AtomicInteger queued;
+  // number of queued tasks for each client.
+  private final Map<WebSocket, AtomicInteger> queuedPerClient;
+  private final AtomicLong tasks;
+  private final AtomicLong busyNanos;
+  private volatile int maxQueued;
+  private volatile long maxBusyNanos;
+
+  /**
+   * Constructor.
+   */
+  OutboundEncoder() {
+    queued = new AtomicInteger();
+    queuedPerClient = new ConcurrentHashMap<>();
+    tasks = new AtomicLong();
+    busyNanos = new AtomicLong();
+    executor =
+      Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "WebSocket RPC Encoder");
+        t.setDaemon(true);
+        thread = t;
+        return t;
+      });
+  }
+
+  /**
+   * Run a task on the encoder thread.
+   * @param task the task that should not touch Bitwig API objects.
+   */
+  @Override
+  public void execute(Runnable task) {
+    if (Thread.currentThread() == thread) {
+      task.run();
+      return;
+    }
+    int n = queued.incrementAndGet();
+    if (n > maxQueued) {
+      maxQueued = n;
+    }
+    try {
+      executor.execute(() -> run(task));
+    } catch (RejectedExecutionException ex) {
+      // already shutdown.
+      queued.decrementAndGet();
+    }
+  }
+
+  /**
+   * Run a task for the client on the encoder thread.
+   * @param conn the client that the task sends message to.
+   * @param task the task that should not touch Bitwig API objects.
+   */
+  void execute(WebSocket conn, Runnable task) {
+    if (Thread.currentThread() == thread) {
+      task.run();
+      return;
+    }
+    AtomicInteger counter = counter(conn);
+    counter.incrementAndGet();
+    execute(() -> {
+      try {
+        task.run();
+      } finally {
+        counter.decrementAndGet();
+      }
+    });
+  }
+
+  /**
+   * Run a task for the clients on the encoder thread.
+   * @param clients the clients that the task sends message to.
+   * @param task the task that should not touch Bitwig API objects.
+   */
+  void execute(Collection<WebSocket> clients, Runnable task) {
+    if (Thread.currentThread() == thread) {
+      task.run();
+      return;
+    }
+    AtomicInteger[] counters = new AtomicInteger[clients.size()];
+    int i = 0;
+    for (WebSocket conn : clients) {
+      counters[i] = counter(conn);
+      counters[i++].incrementAndGet();
+    }
+    execute(() -> {
+      try {
+        task.run();
+      } finally {
+        for (AtomicInteger counter : counters) {
+          counter.decrementAndGet();
+        }
+      }
+    });
+  }
+
+  /**
+   * Returns the number of queued tasks for the client.
+   * @param conn
+   * @return
+   */
+  int queued(WebSocket conn) {
+    AtomicInteger counter = queuedPerClient.get(conn);
+    return counter != null ? counter.get() : 0;
+  }
+
+  /**
+   * Remove the counter of the client.
+   * @param conn
+   */
+  void remove(WebSocket conn) {
+    queuedPerClient.remove(conn);
+  }
+
+  /**
+   * Shutdown the encoder thread, queued tasks are run before shutdown.
+   */
+  void shutdown() {
+    executor.shutdown();
+    try {
+      if (
+        !executor.awaitTermination(
+          SHUTDOWN_TIMEOUT_MILLIS,
+          TimeUnit.MILLISECONDS
+        )
+      ) {
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException ex) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * create a report object for this class.
+   * @return
+   */
+  Object report() {
+    Map<String, Object> report = new LinkedHashMap<>();
+    long n = tasks.get();
+    long nanos = busyNanos.get();
+    report.put("tasks", n);
+    report.put("queued", queued.get());
+    report.put("maxQueued", maxQueued);
+    report.put("busyMillis", TimeUnit.NANOSECONDS.toMillis(nanos));
+    report.put("avgTaskMicros", n > 0 ? nanos / n / 1000L : 0L);
+    report.put("maxTaskMicros", maxBusyNanos / 1000L);
+    return report;
+  }
+
+  private void run(Runnable task) {
+    queued.decrementAndGet();
+    long start = System.nanoTime();
+    try {
+      task.run();
+    } catch (WebsocketNotConnectedException ex) {
+      // the client has been disconnected while queued.
+      LOG.debug("message is discarded, client is not connected.");
+    } catch (Exception ex) {
+      LOG.error("outbound message encoding error.", ex);
+    }
+    long elapsed = System.nanoTime() - start;
+    tasks.incrementAndGet();
+    busyNanos.addAndGet(elapsed);
+    if (elapsed > maxBusyNanos) {
+      maxBusyNanos = elapsed;
+    }
+  }
+
+  private AtomicInteger counter(WebSocket conn) {
+    AtomicInteger counter = queuedPerClient.get(conn);
+    if (counter == null) {
+      counter = queuedPerClient.computeIfAbsent(conn, c -> new AtomicInteger());
+    }
+    return counter;
+  }
+}
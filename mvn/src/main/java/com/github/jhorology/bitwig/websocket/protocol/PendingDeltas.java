@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.websocket.protocol;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.function.BiFunction;
+
+/**
+ * The deltas of a collection value that are held until sent.<br>
+ * The changed elements of newer deltas are merged into the held ones instead
+ * of replacing them, so that no changes are lost while the notification is
+ * held in outbound buffer or in a batch. The notification is rendered when
+ * it's sent.<br>
+ * This class assumes that all methods are called from within "Control Surface Session" thread.
+ */
+final class PendingDeltas {
+
+  private final NotificationTemplate template;
+  private final LinkedHashSet<Object> elements;
+  private final BiFunction<NotificationTemplate, Object[], Object> renderer;
+
+  /**
+   * Constructor.
+   * @param template
+   * @param params the changed elements.
+   * @param renderer the function to render a notification message.
+   */
+  PendingDeltas(
+    NotificationTemplate template,
+    Object[] params,
+    BiFunction<NotificationTemplate, Object[], Object> renderer
+  ) {
+    this.template = template;
+    this.elements = new LinkedHashSet<>();
+    this.renderer = renderer;
+    merge(params);
+  }
+
+  /**
+   * Merge the changed elements of newer deltas.
+   * @param params
+   */
+  void merge(Object[] params) {
+    if (params != null) {
+      Collections.addAll(elements, params);
+    }
+  }
+
+  /**
+   * Render the merged deltas into a notification message.
+   * @return String or ByteBuffer message, or {@link DeferredNotification}
+   *         if it's encoded on encoder thread.
+   */
+  Object render() {
+    return renderer.apply(template, elements.toArray());
+  }
+}
@@ -23,6 +23,7 @@
 package com.github.jhorology.bitwig.websocket.protocol;
 
 import com.github.jhorology.bitwig.rpc.RpcRegistry;
+import com.github.jhorology.bitwig.websocket.WebSocketEventHandler;
 import java.nio.ByteBuffer;
 import org.java_websocket.WebSocket;
 import org.java_websocket.handshake.ClientHandshake;
@@ -30,7 +31,7 @@ import org.java_websocket.handshake.ClientHandshake;
 /**
  * A factory class for creating RPC protocol handler.
  */
-public interface ProtocolHandler {
+public interface ProtocolHandler extends WebSocketEventHandler {
   /**
    * Handles start of life-cycle of WebSocket server.
    */
@@ -71,6 +72,13 @@ public interface ProtocolHandler {
    */
   void onMessage(WebSocket conn, ByteBuffer message);
 
+  /**
+   * Handles incoming message that has been decoded by worker thread.
+   * @param conn
+   * @param decoded
+   */
+  void onDecoded(WebSocket conn, Object decoded);
+
   /**
    * Handles error.
    * @param conn
@@ -23,12 +23,14 @@
 package com.github.jhorology.bitwig.websocket.protocol;
 
 import com.github.jhorology.bitwig.websocket.protocol.jsonrpc.JsonRpcProtocolHandler;
+import com.github.jhorology.bitwig.websocket.protocol.msgpack.MessagePackRpcProtocolHandler;
 
 /**
  * A factory class for creating RPC protocol handler.
  */
 public enum Protocols {
-  JSONRPC20("JSON-RPC 2.0");
+  JSONRPC20("JSON-RPC 2.0"),
+  JSONRPC20_MSGPACK("JSON-RPC 2.0 over MessagePack");
 
   private final String displayName;
 
@@ -53,6 +55,8 @@ public enum Protocols {
     switch (protocol) {
       case JSONRPC20:
         return new JsonRpcProtocolHandler();
+      case JSONRPC20_MSGPACK:
+        return new MessagePackRpcProtocolHandler();
     }
     return null;
   }
@@ -49,4 +49,47 @@ public interface PushModel {
    * @param notification
    */
   void broadcast(Notification notification);
+
+  /**
+   * Creates a new template of notification for repeated pushes.
+   * @param notification The notification message.
+   * @param leadingParams The array of fixed parameters.
+   * @return
+   */
+  NotificationTemplate newNotificationTemplate(
+    String notification,
+    Object[] leadingParams
+  );
+
+  /**
+   * Sends a notification that is filled template with parameters to client.
+   * @param template
+   * @param params
+   * @param client
+   */
+  void push(NotificationTemplate template, Object[] params, WebSocket client);
+
+  /**
+   * Sends a notification that is filled template with parameters to clients.
+   * @param template
+   * @param params
+   * @param clients
+   */
+  void push(
+    NotificationTemplate template,
+    Object[] params,
+    Collection<WebSocket> clients
+  );
+
+  /**
+   * Returns a report of outbound buffers of clients.
+   * @return
+   */
+  Object reportOutbound();
+
+  /**
+   * Returns a report of inbound queues of clients.
+   * @return
+   */
+  Object reportInbound();
 }
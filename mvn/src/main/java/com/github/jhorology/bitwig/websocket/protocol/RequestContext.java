@@ -33,27 +33,44 @@ import org.java_websocket.WebSocket;
  */
 public class RequestContext {
 
+  private static final ExecutionContext.Key<RequestContext> KEY = ExecutionContext.registerKey(
+    RequestContext.class
+  );
+  // all requests are processed within "Control Surface Session" thread,
+  // a single instance is reused for each request.
+  private static final RequestContext INSTANCE = new RequestContext();
+
   private WebSocket connection;
   private PushModel pushModel;
-  private List<Notification> notifications;
-
-  // private constructor to prevent instantiation of this class
-  private RequestContext() {}
+  private final List<Notification> notifications;
 
   // private constructor to prevent instantiation of this class
-  private RequestContext(WebSocket connection, PushModel pushModel) {
-    this.connection = connection;
-    this.pushModel = pushModel;
+  private RequestContext() {
+    notifications = new ArrayList<>();
   }
 
   /**
    * Initialize the context.
    * @param connection
-   * @param registry
+   * @param pushModel
    */
   static void init(WebSocket connection, PushModel pushModel) {
-    RequestContext context = new RequestContext(connection, pushModel);
-    ExecutionContext.getContext().set(RequestContext.class, context);
+    RequestContext context = INSTANCE;
+    context.connection = connection;
+    context.pushModel = pushModel;
+    context.notifications.clear();
+    ExecutionContext.getContext().set(KEY, context);
+  }
+
+  /**
+   * Release the references to the request after processing it.<br>
+   * The reused instance should not keep the connection reachable.
+   */
+  static void release() {
+    RequestContext context = INSTANCE;
+    context.connection = null;
+    context.pushModel = null;
+    context.notifications.clear();
   }
 
   /**
@@ -61,7 +78,7 @@ public class RequestContext {
    * @return The current context.
    */
   public static RequestContext getContext() {
-    return ExecutionContext.getContext().get(RequestContext.class);
+    return ExecutionContext.getContext().get(KEY);
   }
 
   /**
@@ -85,14 +102,12 @@ public class RequestContext {
    * @param notification
    */
   public void addNotification(Notification notification) {
-    if (notifications == null) {
-      notifications = new ArrayList<>();
-    }
     notifications.add(notification);
   }
 
   /**
-   * Return a list of notification messages.
+   * Return a list of notification messages.<br>
+   * The list is reused, it's cleared after the request.
    * @return
    */
   List<Notification> getNotifications() {
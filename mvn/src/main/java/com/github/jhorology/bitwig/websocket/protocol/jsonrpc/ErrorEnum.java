@@ -71,6 +71,15 @@ public enum ErrorEnum {
     -32000,
     "Server error",
     "Reserved for implementation-defined server-errors."
+  ),
+
+  /**
+   * Too many requests are queued.
+   */
+  SERVER_BUSY(
+    -32001,
+    "Server busy",
+    "Too many requests are queued, the request was not processed."
   );
 
   private final int code;
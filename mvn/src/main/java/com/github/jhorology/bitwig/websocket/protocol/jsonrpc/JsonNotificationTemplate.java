@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.websocket.protocol.jsonrpc;
+
+import com.github.jhorology.bitwig.websocket.protocol.NotificationTemplate;
+import com.google.gson.Gson;
+
+/**
+ * A notification template that caches the serialized JSON prefix.
+ * <pre>{@code
+ *   {"notification":"mainTrackBank.getItemAt.volume.value","params":[3,
+ * }</pre>
+ * Only the changing values are appended to the prefix. Primitive values are
+ * written directly, other values are serialized by Gson.<br>
+ * This class is not thread-safe, notifications are serialized either within
+ * 'Control Surface Session' thread or on encoder thread.
+ */
+class JsonNotificationTemplate extends NotificationTemplate {
+
+  private final StringBuilder sb = new StringBuilder(128);
+  private String prefix;
+  private int prefixLength;
+
+  /**
+   * Constructor.
+   * @param notification
+   * @param leadingParams
+   */
+  JsonNotificationTemplate(String notification, Object[] leadingParams) {
+    super(notification, leadingParams);
+  }
+
+  /**
+   * Serialize a notification filled with specified parameters.
+   * @param gson
+   * @param params
+   * @return JSON text.
+   */
+  String toJson(Gson gson, Object[] params) {
+    int leadingLength = getLeadingParams().length;
+    int length = params != null ? params.length : 0;
+    if (
+      leadingLength == 0 &&
+      (
+        length == 0 ||
+        (length == 1 && !isDelta() && !isPrimitive(params[0]))
+      )
+    ) {
+      // NotificationAdapter omits empty params or flattens single object.
+      return gson.toJson(newNotification(params));
+    }
+    if (prefix == null) {
+      prefix = newPrefix(gson);
+    }
+    sb.setLength(0);
+    sb.append(prefix);
+    for (int i = 0; i < length; i++) {
+      if (i > 0 || leadingLength > 0) {
+        sb.append(',');
+      }
+      append(gson, params[i]);
+    }
+    sb.append("]}");
+    return sb.toString();
+  }
+
+  private String newPrefix(Gson gson) {
+    sb.setLength(0);
+    sb.append("{\"notification\":");
+    sb.append(gson.toJson(getNotification()));
+    sb.append(",\"params\":[");
+    Object[] leadingParams = getLeadingParams();
+    for (int i = 0; i < leadingParams.length; i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      append(gson, leadingParams[i]);
+    }
+    return sb.toString();
+  }
+
+  private void append(Gson gson, Object value) {
+    if (value == null) {
+      sb.append("null");
+    } else if (value instanceof Integer) {
+      sb.append(((Integer) value).intValue());
+    } else if (value instanceof Boolean) {
+      sb.append(((Boolean) value).booleanValue());
+    } else if (value instanceof Double && isFinite((Double) value)) {
+      sb.append(((Double) value).doubleValue());
+    } else if (value instanceof Long) {
+      sb.append(((Long) value).longValue());
+    } else {
+      sb.append(gson.toJson(value));
+    }
+  }
+
+  private static boolean isPrimitive(Object value) {
+    return (
+      value == null ||
+      value instanceof Integer ||
+      value instanceof Boolean ||
+      value instanceof Double ||
+      value instanceof Long ||
+      value instanceof String
+    );
+  }
+
+  private static boolean isFinite(Double value) {
+    return !value.isNaN() && !value.isInfinite();
+  }
+}
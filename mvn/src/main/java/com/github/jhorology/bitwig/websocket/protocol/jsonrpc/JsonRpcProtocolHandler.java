@@ -27,11 +27,18 @@ import com.github.jhorology.bitwig.logging.LoggerFactory;
 import com.github.jhorology.bitwig.rpc.RpcMethod;
 import com.github.jhorology.bitwig.websocket.protocol.AbstractProtocolHandler;
 import com.github.jhorology.bitwig.websocket.protocol.Notification;
+import com.github.jhorology.bitwig.websocket.protocol.NotificationTemplate;
 import com.github.jhorology.bitwig.websocket.protocol.PushModel;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.StringReader;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -49,6 +56,8 @@ public class JsonRpcProtocolHandler
   );
 
   private Gson gson;
+  // also used from WebSocket worker threads.
+  private volatile RequestDecoder decoder;
 
   /**
    * {@inheritDoc}
@@ -66,16 +75,12 @@ public class JsonRpcProtocolHandler
           new ExcludeFieldsWithoutExposeAnnotationStrategy(false)
         )
         // .excludeFieldsWithoutExposeAnnotation()
-        .registerTypeAdapter(
-          BatchOrSingleRequest.class,
-          new BatchOrSingleRequestAdapter()
-        )
-        .registerTypeAdapter(Request.class, new RequestAdapter(registry))
         .registerTypeAdapter(Response.class, new ResponseAdapter())
         .registerTypeAdapter(Error.class, new ErrorAdapter())
         .registerTypeAdapter(Notification.class, new NotificationAdapter())
         .registerTypeAdapter(Config.class, new ConfigAdapter())
         .create();
+    decoder = new RequestDecoder(registry, gson);
   }
 
   /**
@@ -84,6 +89,7 @@ public class JsonRpcProtocolHandler
   @Override
   public void onStop() {
     gson = null;
+    decoder = null;
   }
 
   /**
@@ -113,60 +119,101 @@ public class JsonRpcProtocolHandler
     if (gson == null) {
       return;
     }
+    onRequest(conn, newReader(message));
+  }
+
+  /**
+   * Process a request message.
+   * @param conn
+   * @param reader the token stream of request message.
+   */
+  protected void onRequest(WebSocket conn, JsonReader reader) {
+    onDecoded(conn, decodeRequest(decoder, reader));
+  }
 
+  /**
+   * Decode and validate a request message.<br>
+   * This method is thread-safe, methods are resolved and arguments are
+   * converted here, so that only invocation is remained for
+   * 'Control Surface Session' thread.
+   * @param decoder
+   * @param reader the token stream of request message.
+   * @return a {@link BatchOrSingleRequest}, or an error {@link Response}.
+   */
+  protected Object decodeRequest(RequestDecoder decoder, JsonReader reader) {
     BatchOrSingleRequest req;
     try {
-      req = gson.fromJson(message, BatchOrSingleRequest.class);
+      req = decoder.decode(reader);
     } catch (JsonSyntaxException ex) {
-      sendError(conn, ErrorEnum.PARSE_ERROR, ex.getMessage(), null);
-      return;
+      return createErrorResponse(ErrorEnum.PARSE_ERROR, ex.getMessage(), null);
     } catch (Throwable ex) {
-      sendError(conn, ErrorEnum.INTERNAL_ERROR, ex.getMessage(), null);
-      return;
+      return createErrorResponse(
+        ErrorEnum.INTERNAL_ERROR,
+        ex.getMessage(),
+        null
+      );
     }
-    String response;
     if (req.isBatch()) {
       if (req.getBatch().isEmpty()) {
-        sendError(
-          conn,
+        return createErrorResponse(
           ErrorEnum.INVALID_REQUEST,
           "batch call with an empty array.",
           null
         );
-        return;
       }
       if (req.getBatch().contains(null)) {
-        sendError(
-          conn,
+        return createErrorResponse(
           ErrorEnum.INVALID_REQUEST,
           "batch contains null.",
           null
         );
-        return;
       }
-      response = onBatchRequest(req.getBatch());
-    } else {
-      if (req.getRequest() == null) {
-        sendError(
-          conn,
-          ErrorEnum.INVALID_REQUEST,
-          "request call with null.",
-          null
-        );
+    } else if (req.getRequest() == null) {
+      return createErrorResponse(
+        ErrorEnum.INVALID_REQUEST,
+        "request call with null.",
+        null
+      );
+    }
+    return req;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onDecoded(WebSocket conn, Object decoded) {
+    if (gson == null) {
+      return;
+    }
+    Object response;
+    if (decoded instanceof BatchOrSingleRequest) {
+      BatchOrSingleRequest req = (BatchOrSingleRequest) decoded;
+      if (req.isBatch()) {
+        onBatchRequest(conn, req.getBatch(), 0, new ArrayList<>());
         return;
       }
       response = onSingleRequest(req.getRequest());
+    } else {
+      // error response of decoding.
+      response = decoded;
     }
     if (response != null) {
-      send(response, conn);
+      sendObject(response, conn);
     }
   }
 
   /**
-   * {@inheritDoc}
+   * {@inheritDoc}<br>
+   * A binary message is handled as a UTF-8 encoded JSON request.
    */
   @Override
-  public void onMessage(WebSocket conn, ByteBuffer message) {}
+  public void onMessage(WebSocket conn, ByteBuffer message) {
+    if (gson == null) {
+      return;
+    }
+    onRequest(conn, newReader(message));
+  }
 
   /**
    * {@inheritDoc}
@@ -180,7 +227,7 @@ public class JsonRpcProtocolHandler
   @Override
   public void push(Notification notification, WebSocket client) {
     if (gson != null) {
-      send(gson.toJson(notification), client);
+      sendObject(notification, client);
     }
   }
 
@@ -190,7 +237,7 @@ public class JsonRpcProtocolHandler
   @Override
   public void push(Notification notification, Collection<WebSocket> clients) {
     if (gson != null) {
-      push(gson.toJson(notification), clients);
+      pushObject(notification, clients);
     }
   }
 
@@ -200,10 +247,145 @@ public class JsonRpcProtocolHandler
   @Override
   public void broadcast(Notification notification) {
     if (gson != null) {
-      broadcast(gson.toJson(notification));
+      broadcastObject(notification);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public NotificationTemplate newNotificationTemplate(
+    String notification,
+    Object[] leadingParams
+  ) {
+    return new JsonNotificationTemplate(notification, leadingParams);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void push(
+    NotificationTemplate template,
+    Object[] params,
+    WebSocket client
+  ) {
+    if (gson != null) {
+      pushTemplate(template, params, client);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void push(
+    NotificationTemplate template,
+    Object[] params,
+    Collection<WebSocket> clients
+  ) {
+    if (gson != null) {
+      pushTemplate(template, params, clients);
     }
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected Object encodeNotification(
+    NotificationTemplate template,
+    Object[] params
+  ) {
+    return toJson(template, params);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object reportOutbound() {
+    return super.reportOutbound();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object reportInbound() {
+    return super.reportInbound();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isDiscardable(String message) {
+    return isDiscardable(newReader(message));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object decode(WebSocket conn, String message) {
+    RequestDecoder decoder = this.decoder;
+    return decoder != null ? decodeRequest(decoder, newReader(message)) : null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void reject(WebSocket conn, String message) {
+    reject(conn, newReader(message));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object decode(WebSocket conn, ByteBuffer message) {
+    RequestDecoder decoder = this.decoder;
+    return decoder != null ? decodeRequest(decoder, newReader(message)) : null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isDiscardable(ByteBuffer message) {
+    return isDiscardable(newReader(message));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void reject(WebSocket conn, ByteBuffer message) {
+    reject(conn, newReader(message));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected Object joinNotifications(List<Object> messages) {
+    StringBuilder sb = new StringBuilder();
+    sb.append('[');
+    for (Object message : messages) {
+      if (!(message instanceof String)) {
+        return null;
+      }
+      if (sb.length() > 1) {
+        sb.append(',');
+      }
+      sb.append((String) message);
+    }
+    return sb.append(']').toString();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -220,24 +402,241 @@ public class JsonRpcProtocolHandler
     return this;
   }
 
-  private String onBatchRequest(List<Request> batch) {
-    List<Response> results = batch
-      .stream()
-      .map(req -> processRequest(req))
-      .filter(res -> res != null)
-      .collect(Collectors.toList());
-    if (!results.isEmpty()) {
-      return gson.toJson(results);
+  /**
+   * Returns the request decoder, or null if not started.<br>
+   * This method is thread-safe.
+   * @return
+   */
+  protected RequestDecoder getDecoder() {
+    return decoder;
+  }
+
+  /**
+   * Returns the Gson instance for serialization, or null if not started.
+   * @return
+   */
+  protected Gson getGson() {
+    return gson;
+  }
+
+  /**
+   * Returns whether the request message contains only notifications.<br>
+   * This method is called from WebSocket worker threads.
+   * @param reader the token stream of request message.
+   * @return
+   */
+  protected boolean isDiscardable(JsonReader reader) {
+    try {
+      return RequestDecoder.readIds(reader).isEmpty();
+    } catch (JsonParseException ex) {
+      return false;
     }
-    return null;
   }
 
-  private String onSingleRequest(Request req) {
-    Response res = processRequest(req);
-    if (res != null) {
-      return gson.toJson(res);
+  /**
+   * Responds "server busy" error to the requests.<br>
+   * This method is called from WebSocket worker threads.
+   * @param conn
+   * @param reader the token stream of request message.
+   */
+  protected void reject(WebSocket conn, JsonReader reader) {
+    Gson gson = this.gson;
+    if (gson == null) {
+      return;
     }
-    return null;
+    Object response;
+    try {
+      boolean batch = reader.peek() == JsonToken.BEGIN_ARRAY;
+      List<Response> responses = RequestDecoder
+        .readIds(reader)
+        .stream()
+        .map(id -> createErrorResponse(ErrorEnum.SERVER_BUSY, null, id))
+        .collect(Collectors.toList());
+      if (responses.isEmpty()) {
+        // notifications
+        return;
+      }
+      response = batch ? responses : responses.get(0);
+    } catch (IOException | JsonParseException ex) {
+      response =
+        createErrorResponse(ErrorEnum.PARSE_ERROR, ex.getMessage(), null);
+    }
+    sendRejected(gson, response, conn);
+  }
+
+  /**
+   * Serialize and send the rejected response to specified client.<br>
+   * This method is called from WebSocket worker threads.
+   * @param gson
+   * @param src
+   * @param conn
+   */
+  protected void sendRejected(Gson gson, Object src, WebSocket conn) {
+    send(gson.toJson(src), conn);
+  }
+
+  /**
+   * Serialize and send the object to specified client.
+   * @param src
+   * @param conn
+   */
+  protected void sendObject(Object src, WebSocket conn) {
+    Gson gson = this.gson;
+    Object snapshot = snapshot(src);
+    flushPending(conn);
+    serialize(conn, () -> send(gson.toJson(snapshot), conn));
+  }
+
+  /**
+   * Serialize and push the object to specified clients.
+   * @param src
+   * @param clients
+   */
+  protected void pushObject(Object src, Collection<WebSocket> clients) {
+    Gson gson = this.gson;
+    Object snapshot = snapshot(src);
+    // subscribers may be changed before serialized.
+    Collection<WebSocket> targets = isAsyncSerialization()
+      ? new ArrayList<>(clients)
+      : clients;
+    flushPending(clients);
+    serialize(targets, () -> push(gson.toJson(snapshot), targets));
+  }
+
+  /**
+   * Serialize and broadcast the object.
+   * @param src
+   */
+  protected void broadcastObject(Object src) {
+    Gson gson = this.gson;
+    Object snapshot = snapshot(src);
+    flushPending();
+    serialize(() -> broadcast(gson.toJson(snapshot)));
+  }
+
+  /**
+   * Capture an immutable snapshot of the object for serializing on encoder
+   * thread.<br>
+   * Bitwig API objects and other mutable values are serialized into a
+   * JsonElement tree by type adapters within 'Control Surface Session'
+   * thread, immutable values are remained as is.
+   * @param src
+   * @return the object itself if asynchronous serialization is disabled.
+   */
+  protected Object snapshot(Object src) {
+    if (!isAsyncSerialization() || isImmutable(src)) {
+      return src;
+    }
+    if (src instanceof Response) {
+      return snapshotResponse((Response) src);
+    }
+    if (src instanceof Notification) {
+      Notification notification = (Notification) src;
+      Object[] params = notification.getParams();
+      if (params == null) {
+        return src;
+      }
+      return new Notification(
+        notification.getNotifictaion(),
+        snapshotParams(params),
+        notification.isFlattenParams()
+      );
+    }
+    if (src instanceof List) {
+      // batch response
+      return ((List<?>) src).stream()
+        .map(this::snapshot)
+        .collect(Collectors.toList());
+    }
+    return gson.toJsonTree(src);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected Object[] snapshotParams(Object[] params) {
+    if (params == null) {
+      return null;
+    }
+    Object[] snapshot = new Object[params.length];
+    for (int i = 0; i < params.length; i++) {
+      snapshot[i] = isImmutable(params[i])
+        ? params[i]
+        : gson.toJsonTree(params[i]);
+    }
+    return snapshot;
+  }
+
+  private Response snapshotResponse(Response src) {
+    Object result = src.getResult();
+    if (isImmutable(result)) {
+      return src;
+    }
+    try {
+      return new Response(gson.toJsonTree(result), src.getId());
+    } catch (Exception ex) {
+      // same as ResponseAdapter, BitwigAdapters may thorws exceptions
+      return createErrorResponse(
+        ErrorEnum.INTERNAL_ERROR,
+        ex.getMessage(),
+        src.getId()
+      );
+    }
+  }
+
+  private static boolean isImmutable(Object value) {
+    return (
+      value == null ||
+      value instanceof String ||
+      value instanceof Boolean ||
+      value instanceof Integer ||
+      value instanceof Long ||
+      value instanceof Double ||
+      value instanceof Float ||
+      value instanceof Short ||
+      value instanceof Byte ||
+      value instanceof Character ||
+      value instanceof Enum
+    );
+  }
+
+  /**
+   * Process the requests of batch within the time-slice budget.<br>
+   * The remaining requests are continued on next drain, and the batch
+   * response is sent after all requests have been processed.
+   */
+  private void onBatchRequest(
+    WebSocket conn,
+    List<Request> batch,
+    int from,
+    List<Response> results
+  ) {
+    if (gson == null) {
+      return;
+    }
+    int size = batch.size();
+    for (int i = from; i < size; i++) {
+      if (i > from && !consumeBudget()) {
+        int next = i;
+        continueRequest(
+          conn,
+          () -> onBatchRequest(conn, batch, next, results)
+        );
+        return;
+      }
+      Response res = processRequest(batch.get(i));
+      if (res != null) {
+        results.add(res);
+      }
+    }
+    if (!results.isEmpty()) {
+      sendObject(results, conn);
+    }
+  }
+
+  private Response onSingleRequest(Request req) {
+    return processRequest(req);
   }
 
   private Response processRequest(Request req) {
@@ -262,6 +661,28 @@ public class JsonRpcProtocolHandler
     return null;
   }
 
+  private String toJson(NotificationTemplate template, Object[] params) {
+    if (template instanceof JsonNotificationTemplate) {
+      return ((JsonNotificationTemplate) template).toJson(gson, params);
+    }
+    return gson.toJson(template.newNotification(params));
+  }
+
+  private static JsonReader newReader(String message) {
+    JsonReader reader = new JsonReader(new StringReader(message));
+    // same as Gson#fromJson
+    reader.setLenient(true);
+    return reader;
+  }
+
+  // UTF-8 JSON is read from the binary message without a String copy.
+  private static JsonReader newReader(ByteBuffer message) {
+    JsonReader reader = new JsonReader(Utf8Reader.of(message));
+    // same as Gson#fromJson
+    reader.setLenient(true);
+    return reader;
+  }
+
   private Response createErrorResponse(
     ErrorEnum error,
     Object data,
@@ -270,14 +691,4 @@ public class JsonRpcProtocolHandler
     Response res = new Response(new Error(error, data), id);
     return res;
   }
-
-  private void sendError(
-    WebSocket conn,
-    ErrorEnum error,
-    Object data,
-    Object id
-  ) {
-    Response res = createErrorResponse(error, data, id);
-    send(gson.toJson(res), conn);
-  }
 }
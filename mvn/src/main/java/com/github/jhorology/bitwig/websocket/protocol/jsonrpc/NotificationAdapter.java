@@ -51,7 +51,7 @@ public class NotificationAdapter implements JsonSerializer<Notification> {
       JsonElement params = context.serialize(srcParams);
       // flatten params
       // params:[{a:1, b:2}] -> params:{a:1, b:2}
-      if (params.isJsonArray()) {
+      if (src.isFlattenParams() && params.isJsonArray()) {
         JsonArray arrayParams = params.getAsJsonArray();
         if (arrayParams.size() == 1) {
           JsonElement singleParam = arrayParams.get(0);
@@ -0,0 +1,639 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.websocket.protocol.jsonrpc;
+
+import com.github.jhorology.bitwig.reflect.ReflectUtils;
+import com.github.jhorology.bitwig.rpc.RpcMethod;
+import com.github.jhorology.bitwig.rpc.RpcParamType;
+import com.github.jhorology.bitwig.rpc.RpcRegistry;
+import com.github.jhorology.bitwig.rpc.RpcSignature;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Array;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A streaming decoder for JSON-RPC 2.0 request messages.
+ * <pre>
+ * Reads 'jsonrpc', 'method', 'id' and 'params' in one pass without building
+ * a JsonElement tree. Scalar params are buffered as tokens, the signature is
+ * inferred from them and then decoded straight into the parameter types of
+ * the resolved method. Only the types that have no fast path (named params,
+ * Bitwig objects, generics) are delegated to the type adapters of Gson.
+ * </pre>
+ */
+public class RequestDecoder {
+
+  private static final long OBJECT_SIGNATURE = RpcSignature.of(
+    new RpcParamType[] { RpcParamType.OBJECT }
+  );
+
+  private final RpcRegistry registry;
+  private final Gson gson;
+  private final TypeAdapter<JsonElement> elementAdapter;
+
+  /**
+   * Constructs this instance with RPC registry and Gson instance.
+   * @param registry
+   * @param gson the Gson instance for the types that have no fast path.
+   */
+  public RequestDecoder(RpcRegistry registry, Gson gson) {
+    this.registry = registry;
+    this.gson = gson;
+    this.elementAdapter = gson.getAdapter(JsonElement.class);
+  }
+
+  /**
+   * Decode a JSON-RPC request message.
+   * @param message the text message.
+   * @return
+   * @throws JsonParseException if message is not a valid JSON.
+   */
+  public BatchOrSingleRequest decode(String message)
+    throws JsonParseException {
+    JsonReader reader = new JsonReader(new StringReader(message));
+    // same as Gson#fromJson
+    reader.setLenient(true);
+    return decode(reader);
+  }
+
+  /**
+   * Decode a JSON-RPC request message from a token stream.<br>
+   * A binary protocol can reuse the decoder by providing its own reader.
+   * @param reader
+   * @return
+   * @throws JsonParseException if message is not a valid document.
+   */
+  public BatchOrSingleRequest decode(JsonReader reader)
+    throws JsonParseException {
+    try {
+      BatchOrSingleRequest req = new BatchOrSingleRequest();
+      if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+        List<Request> batch = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+          batch.add(readRequest(reader));
+        }
+        reader.endArray();
+        req.setBatch(batch);
+      } else {
+        req.setRequest(readRequest(reader));
+      }
+      if (reader.peek() != JsonToken.END_DOCUMENT) {
+        throw new JsonSyntaxException("JSON document was not fully consumed.");
+      }
+      return req;
+    } catch (EOFException ex) {
+      throw new JsonSyntaxException("unexpected end of message.", ex);
+    } catch (IOException | IllegalStateException ex) {
+      throw new JsonSyntaxException(ex);
+    }
+  }
+
+  /**
+   * Read the ids of requests without decoding other members.<br>
+   * Notifications are not included. This method is thread-safe.
+   * @param reader
+   * @return the ids of requests.
+   * @throws JsonParseException if message is not a valid document.
+   */
+  public static List<Object> readIds(JsonReader reader)
+    throws JsonParseException {
+    try {
+      List<Object> ids = new ArrayList<>();
+      if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+        reader.beginArray();
+        while (reader.hasNext()) {
+          readId(reader, ids);
+        }
+        reader.endArray();
+      } else {
+        readId(reader, ids);
+      }
+      return ids;
+    } catch (EOFException ex) {
+      throw new JsonSyntaxException("unexpected end of message.", ex);
+    } catch (IOException | IllegalStateException ex) {
+      throw new JsonSyntaxException(ex);
+    }
+  }
+
+  private static void readId(JsonReader reader, List<Object> ids)
+    throws IOException {
+    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+      // invalid request is responded by decoder.
+      reader.skipValue();
+      return;
+    }
+    reader.beginObject();
+    while (reader.hasNext()) {
+      if (!"id".equals(reader.nextName())) {
+        reader.skipValue();
+        continue;
+      }
+      JsonToken token = reader.peek();
+      if (token == JsonToken.STRING) {
+        ids.add(reader.nextString());
+      } else if (token == JsonToken.NUMBER) {
+        ids.add(truncateInt(reader.nextString()));
+      } else {
+        reader.skipValue();
+        ids.add(null);
+      }
+    }
+    reader.endObject();
+  }
+
+  private Request readRequest(JsonReader reader) throws IOException {
+    JsonToken token = reader.peek();
+    if (token == JsonToken.NULL) {
+      reader.nextNull();
+      return null;
+    }
+    Request req = new Request();
+    if (token != JsonToken.BEGIN_OBJECT) {
+      reader.skipValue();
+      req.setError(
+        new Error(ErrorEnum.INVALID_REQUEST, "request should be JSON object.")
+      );
+      return req;
+    }
+    JsonToken jsonrpcToken = null;
+    String jsonrpc = null;
+    JsonToken methodToken = null;
+    String method = null;
+    JsonToken idToken = null;
+    String id = null;
+    JsonToken paramsToken = null;
+    Object params = null;
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "jsonrpc":
+          jsonrpcToken = reader.peek();
+          jsonrpc = readString(reader, jsonrpcToken);
+          break;
+        case "method":
+          methodToken = reader.peek();
+          method = readString(reader, methodToken);
+          break;
+        case "id":
+          idToken = reader.peek();
+          id = readString(reader, idToken);
+          break;
+        case "params":
+          paramsToken = reader.peek();
+          params = readValue(reader, paramsToken);
+          break;
+        default:
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
+
+    try {
+      // "jsonrpc": "2.0"
+      if (jsonrpcToken == null) {
+        throw new JsonRpcException(
+          ErrorEnum.INVALID_REQUEST,
+          "'jsonrpc' property does not exist."
+        );
+      }
+      if (jsonrpcToken != JsonToken.STRING) {
+        throw new JsonRpcException(
+          ErrorEnum.INVALID_REQUEST,
+          "'jsonrpc' property should be string."
+        );
+      }
+      req.setJsonrpc(jsonrpc);
+      if (!JsonRpcProtocolHandler.JSONRPC_VERSION.equals(jsonrpc)) {
+        throw new JsonRpcException(
+          ErrorEnum.INVALID_REQUEST,
+          "unsupported version of 'jsonrpc' property."
+        );
+      }
+
+      // "method": "sum"
+      if (methodToken == null) {
+        throw new JsonRpcException(
+          ErrorEnum.INVALID_REQUEST,
+          "'method' property does not exist."
+        );
+      }
+      if (methodToken != JsonToken.STRING) {
+        throw new JsonRpcException(
+          ErrorEnum.INVALID_REQUEST,
+          "'method' property should be string."
+        );
+      }
+      req.setMethod(method);
+
+      long signature = toRpcSignature(paramsToken, params);
+      RpcMethod rpcMethod = signature != RpcSignature.UNPACKABLE
+        ? registry.getRpcMethod(method, signature)
+        : registry.getRpcMethod(method, toRpcParamTypes((Values) params));
+
+      req.setNotify(idToken == null);
+      if (idToken == JsonToken.STRING) {
+        // "id": "abc"
+        req.setId(id);
+      } else if (idToken == JsonToken.NUMBER) {
+        // "id": 1
+        req.setId(truncateInt(id));
+      }
+
+      if (rpcMethod == null) {
+        throw new JsonRpcException(
+          ErrorEnum.METHOD_NOT_FOUND,
+          "'" + method + "' method not found."
+        );
+      }
+      req.setRpcMethod(rpcMethod);
+
+      // TODO rpc-websockets client send null as empty params.
+      if (paramsToken == null || paramsToken == JsonToken.NULL) {
+        req.setParams(new Object[0]);
+      } else {
+        Type[] paramTypes = rpcMethod.getParamTypes();
+        boolean isVarargs = ReflectUtils.isVarargs(paramTypes);
+
+        // matching params:
+        //    ['a','b','c'] or args = ['a', 'b', 'c']; [args]
+        // to method arguments:
+        //   foobar(String... args) or foobar(String[] args)
+        //
+        if (paramsToken == JsonToken.BEGIN_ARRAY) {
+          Values values = (Values) params;
+          if (values.size == 1 && values.tokens[0] == JsonToken.BEGIN_ARRAY) {
+            params = values.values[0];
+          }
+        }
+        if (paramsToken == JsonToken.BEGIN_ARRAY && !isVarargs) {
+          Values values = (Values) params;
+          Object[] args = new Object[values.size];
+          for (int i = 0; i < values.size; i++) {
+            args[i] = decodeValue(
+              values.tokens[i],
+              values.values[i],
+              paramTypes[i]
+            );
+          }
+          req.setParams(args);
+        } else {
+          req.setParams(decodeValue(paramsToken, params, paramTypes[0]));
+        }
+      }
+    } catch (
+      JsonParseException | IllegalStateException | IllegalArgumentException ex
+    ) {
+      // e.g. boolean to number, null to primitive array element.
+      // same as the exceptions wrapped by Gson's deserialization.
+      req.setError(new Error(ErrorEnum.PARSE_ERROR, ex.getMessage()));
+    } catch (JsonRpcException ex) {
+      req.setError(ex.getError());
+    }
+    return req;
+  }
+
+  private String readString(JsonReader reader, JsonToken token)
+    throws IOException {
+    if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+      return reader.nextString();
+    }
+    reader.skipValue();
+    return null;
+  }
+
+  private Object readValue(JsonReader reader, JsonToken token)
+    throws IOException {
+    switch (token) {
+      case STRING:
+      case NUMBER:
+        // numbers are kept as literal, decoded on demand.
+        return reader.nextString();
+      case BOOLEAN:
+        return reader.nextBoolean();
+      case NULL:
+        reader.nextNull();
+        return null;
+      case BEGIN_ARRAY:
+        Values values = new Values();
+        reader.beginArray();
+        while (reader.hasNext()) {
+          JsonToken t = reader.peek();
+          values.add(t, readValue(reader, t));
+        }
+        reader.endArray();
+        return values;
+      case BEGIN_OBJECT:
+        return elementAdapter.read(reader);
+      default:
+        throw new JsonSyntaxException("unexpected token: " + token);
+    }
+  }
+
+  private long toRpcSignature(JsonToken token, Object params) {
+    if (token == null || token == JsonToken.NULL) {
+      return RpcSignature.EMPTY;
+    }
+    // array parameters "params":[1,2,3]
+    if (token == JsonToken.BEGIN_ARRAY) {
+      Values values = (Values) params;
+      if (values.size == 0) {
+        throw new JsonRpcException(
+          ErrorEnum.INVALID_PARAMS,
+          "'params' property is empty array."
+        );
+      }
+      if (values.size > RpcSignature.MAX_PACKED_PARAMS) {
+        return RpcSignature.UNPACKABLE;
+      }
+      long signature = RpcSignature.EMPTY;
+      for (int i = 0; i < values.size; i++) {
+        signature =
+          RpcSignature.append(
+            signature,
+            paramItemTypeOf(values.tokens[i], values.values[i])
+          );
+      }
+      return signature;
+    }
+    // named parameters "params":{"left":1, "right":2}
+    if (token == JsonToken.BEGIN_OBJECT) {
+      if (((JsonObject) params).entrySet().isEmpty()) {
+        throw new JsonRpcException(
+          ErrorEnum.INVALID_PARAMS,
+          "'params' property is empty object."
+        );
+      }
+      return OBJECT_SIGNATURE;
+    }
+    throw new JsonRpcException(
+      ErrorEnum.INVALID_PARAMS,
+      "unsupported type of 'params' property."
+    );
+  }
+
+  private RpcParamType[] toRpcParamTypes(Values values) {
+    RpcParamType[] types = new RpcParamType[values.size];
+    for (int i = 0; i < values.size; i++) {
+      types[i] = paramItemTypeOf(values.tokens[i], values.values[i]);
+    }
+    return types;
+  }
+
+  private RpcParamType paramItemTypeOf(JsonToken token, Object value) {
+    if (token != JsonToken.BEGIN_ARRAY) {
+      return scalarParamTypeOf(token);
+    }
+    Values values = (Values) value;
+    if (values.size == 0) {
+      return RpcParamType.OBJECT_ARRAY;
+    }
+    // exclude doble nested array
+    // func(int, int, int[]) -> params: [1, 2, [3,4,5]] ok
+    // params: [1, 2, [[3,4],5]] unsupported
+    RpcParamType componentType = null;
+    boolean allMatch = true;
+    for (int i = 0; i < values.size; i++) {
+      if (values.tokens[i] == JsonToken.BEGIN_ARRAY) {
+        throw new JsonRpcException(
+          ErrorEnum.INVALID_PARAMS,
+          "unsupported double nested array type of 'params' property."
+        );
+      }
+      RpcParamType t = scalarParamTypeOf(values.tokens[i]);
+      if (componentType == null) {
+        componentType = t;
+      } else if (t != componentType) {
+        allMatch = false;
+      }
+    }
+    if (allMatch) {
+      return componentType.getArrayType();
+    }
+    return RpcParamType.OBJECT_ARRAY;
+  }
+
+  private RpcParamType scalarParamTypeOf(JsonToken token) {
+    switch (token) {
+      case BOOLEAN:
+        return RpcParamType.BOOLEAN;
+      case NUMBER:
+        return RpcParamType.NUMBER;
+      case STRING:
+        return RpcParamType.STRING;
+      default:
+        return RpcParamType.OBJECT;
+    }
+  }
+
+  private Object decodeValue(JsonToken token, Object value, Type type) {
+    if (token == JsonToken.NULL) {
+      return null;
+    }
+    if (type instanceof Class) {
+      Class<?> c = (Class<?>) type;
+      switch (token) {
+        case STRING:
+        case NUMBER:
+          if (c == String.class) {
+            return value;
+          }
+          if (c == Object.class) {
+            return token == JsonToken.NUMBER
+              ? Double.valueOf((String) value)
+              : value;
+          }
+          if (c == int.class || c == Integer.class) {
+            return token == JsonToken.NUMBER
+              ? truncateInt((String) value)
+              : parseInt((String) value);
+          }
+          if (c == double.class || c == Double.class) {
+            return parseDouble((String) value);
+          }
+          if (c == float.class || c == Float.class) {
+            return (float) parseDouble((String) value);
+          }
+          if (c == long.class || c == Long.class) {
+            return token == JsonToken.NUMBER
+              ? truncateLong((String) value)
+              : parseLong((String) value);
+          }
+          if (c == boolean.class || c == Boolean.class) {
+            if (token == JsonToken.STRING) {
+              return Boolean.parseBoolean((String) value);
+            }
+          }
+          break;
+        case BOOLEAN:
+          if (
+            c == boolean.class || c == Boolean.class || c == Object.class
+          ) {
+            return value;
+          }
+          if (c == String.class) {
+            return value.toString();
+          }
+          break;
+        case BEGIN_ARRAY:
+          if (c.isArray()) {
+            Class<?> componentType = c.getComponentType();
+            Values values = (Values) value;
+            Object array = Array.newInstance(componentType, values.size);
+            for (int i = 0; i < values.size; i++) {
+              Array.set(
+                array,
+                i,
+                decodeValue(values.tokens[i], values.values[i], componentType)
+              );
+            }
+            return array;
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    // no fast path, e.g. enums, named params, generic types.
+    return gson
+      .getAdapter(TypeToken.get(type))
+      .fromJsonTree(toJsonTree(token, value));
+  }
+
+  private JsonElement toJsonTree(JsonToken token, Object value) {
+    switch (token) {
+      case STRING:
+        return new JsonPrimitive((String) value);
+      case NUMBER:
+        return new JsonPrimitive(new BigDecimal((String) value));
+      case BOOLEAN:
+        return new JsonPrimitive((Boolean) value);
+      case BEGIN_ARRAY:
+        Values values = (Values) value;
+        JsonArray array = new JsonArray(values.size);
+        for (int i = 0; i < values.size; i++) {
+          array.add(toJsonTree(values.tokens[i], values.values[i]));
+        }
+        return array;
+      case BEGIN_OBJECT:
+        return (JsonElement) value;
+      default:
+        return JsonNull.INSTANCE;
+    }
+  }
+
+  // same conversion as JsonPrimitive#getAsInt for a string.
+  private static int parseInt(String literal) {
+    try {
+      return Integer.parseInt(literal);
+    } catch (NumberFormatException ex) {
+      throw new JsonSyntaxException(ex);
+    }
+  }
+
+  // same conversion as JsonPrimitive#getAsInt, truncates fraction and overflow.
+  private static int truncateInt(String literal) {
+    try {
+      return Integer.parseInt(literal);
+    } catch (NumberFormatException ex) {
+      try {
+        return (int) Long.parseLong(literal);
+      } catch (NumberFormatException ex2) {
+        try {
+          return new BigDecimal(literal).intValue();
+        } catch (NumberFormatException ex3) {
+          throw new JsonSyntaxException(ex3);
+        }
+      }
+    }
+  }
+
+  // same conversion as JsonPrimitive#getAsLong for a string.
+  private static long parseLong(String literal) {
+    try {
+      return Long.parseLong(literal);
+    } catch (NumberFormatException ex) {
+      throw new JsonSyntaxException(ex);
+    }
+  }
+
+  // same conversion as JsonPrimitive#getAsLong, truncates fraction and overflow.
+  private static long truncateLong(String literal) {
+    try {
+      return Long.parseLong(literal);
+    } catch (NumberFormatException ex) {
+      try {
+        return new BigDecimal(literal).longValue();
+      } catch (NumberFormatException ex2) {
+        throw new JsonSyntaxException(ex2);
+      }
+    }
+  }
+
+  private static double parseDouble(String literal) {
+    try {
+      return Double.parseDouble(literal);
+    } catch (NumberFormatException ex) {
+      throw new JsonSyntaxException(ex);
+    }
+  }
+
+  /**
+   * Buffered tokens of a JSON array.
+   */
+  private static class Values {
+
+    private JsonToken[] tokens = new JsonToken[4];
+    private Object[] values = new Object[4];
+    private int size;
+
+    private void add(JsonToken token, Object value) {
+      if (size == tokens.length) {
+        tokens = Arrays.copyOf(tokens, size * 2);
+        values = Arrays.copyOf(values, size * 2);
+      }
+      tokens[size] = token;
+      values[size] = value;
+      size++;
+    }
+  }
+}
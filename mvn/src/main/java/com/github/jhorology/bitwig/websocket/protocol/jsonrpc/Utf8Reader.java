@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.websocket.protocol.jsonrpc;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reader that decodes UTF-8 characters straight from a binary message.<br>
+ * Characters are decoded into the buffer of JsonReader without copying the
+ * message into a String. An instance is pooled for each thread and reused
+ * across messages, so this reader is not reentrant.
+ */
+final class Utf8Reader extends Reader {
+
+  private static final ThreadLocal<Utf8Reader> POOL = ThreadLocal.withInitial(
+    Utf8Reader::new
+  );
+
+  private final CharsetDecoder decoder;
+  // holds the second char of surrogate pair that doesn't fit.
+  private final CharBuffer pending;
+  private ByteBuffer in;
+  // the wrapper of last buffer that is passed from JsonReader.
+  private char[] array;
+  private CharBuffer out;
+
+  private Utf8Reader() {
+    decoder =
+      StandardCharsets.UTF_8
+        .newDecoder()
+        .onMalformedInput(CodingErrorAction.REPORT)
+        .onUnmappableCharacter(CodingErrorAction.REPORT);
+    pending = CharBuffer.allocate(2);
+    pending.flip();
+  }
+
+  /**
+   * Returns a pooled reader of current thread for the message.
+   * @param message the UTF-8 encoded message, the position is not changed.
+   * @return
+   */
+  static Utf8Reader of(ByteBuffer message) {
+    Utf8Reader reader = POOL.get();
+    reader.in = message.duplicate();
+    reader.decoder.reset();
+    reader.pending.clear().flip();
+    return reader;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int read(char[] cbuf, int off, int len) throws IOException {
+    if (in == null) {
+      throw new IOException("reader has been closed.");
+    }
+    if (len == 0) {
+      return 0;
+    }
+    if (pending.hasRemaining()) {
+      cbuf[off] = pending.get();
+      return 1;
+    }
+    if (!in.hasRemaining()) {
+      return -1;
+    }
+    if (cbuf != array) {
+      array = cbuf;
+      out = CharBuffer.wrap(cbuf);
+    }
+    out.limit(off + len).position(off);
+    decode(out);
+    int n = out.position() - off;
+    if (n > 0) {
+      return n;
+    }
+    // no space for a surrogate pair.
+    pending.clear();
+    decode(pending);
+    pending.flip();
+    if (!pending.hasRemaining()) {
+      return -1;
+    }
+    cbuf[off] = pending.get();
+    return 1;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() {
+    in = null;
+  }
+
+  private void decode(CharBuffer dst) throws IOException {
+    CoderResult result = decoder.decode(in, dst, true);
+    if (result.isError()) {
+      result.throwException();
+    }
+    if (result.isUnderflow()) {
+      decoder.flush(dst);
+    }
+  }
+}
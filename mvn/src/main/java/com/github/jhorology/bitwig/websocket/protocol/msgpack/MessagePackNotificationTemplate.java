@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.websocket.protocol.msgpack;
+
+import com.github.jhorology.bitwig.websocket.protocol.NotificationTemplate;
+import com.google.gson.Gson;
+import java.nio.ByteBuffer;
+
+/**
+ * A notification template that caches the encoded MessagePack prefix.<br>
+ * The structure of message is same as JSON-RPC notification.
+ * <pre>{@code
+ *   {"notification":"mainTrackBank.getItemAt.volume.value","params":[3, 0.5]}
+ * }</pre>
+ * Only the changing values are appended to the prefix. Primitive values are
+ * written directly, other values are serialized via Gson's JSON tree.<br>
+ * This class is not thread-safe, notifications are encoded either within
+ * 'Control Surface Session' thread or on encoder thread.
+ */
+class MessagePackNotificationTemplate extends NotificationTemplate {
+
+  private byte[] head;
+  private byte[] leading;
+
+  /**
+   * Constructor.
+   * @param notification
+   * @param leadingParams
+   */
+  MessagePackNotificationTemplate(
+    String notification,
+    Object[] leadingParams
+  ) {
+    super(notification, leadingParams);
+  }
+
+  /**
+   * Encode a notification filled with specified parameters.
+   * @param gson
+   * @param writer
+   * @param params
+   * @return MessagePack message.
+   */
+  ByteBuffer encode(Gson gson, MessagePackWriter writer, Object[] params) {
+    int leadingLength = getLeadingParams().length;
+    int length = params != null ? params.length : 0;
+    writer.reset();
+    if (
+      leadingLength == 0 &&
+      (
+        length == 0 ||
+        (length == 1 && !isDelta() && !isPrimitive(params[0]))
+      )
+    ) {
+      // NotificationAdapter omits empty params or flattens single object.
+      return writer
+        .write(gson.toJsonTree(newNotification(params)))
+        .toByteBuffer();
+    }
+    if (head == null) {
+      newPrefix(gson, writer);
+    }
+    writer.writeRaw(head);
+    writer.writeArrayHeader(leadingLength + length);
+    writer.writeRaw(leading);
+    for (int i = 0; i < length; i++) {
+      write(gson, writer, params[i]);
+    }
+    return writer.toByteBuffer();
+  }
+
+  private void newPrefix(Gson gson, MessagePackWriter writer) {
+    head =
+      writer
+        .writeMapHeader(2)
+        .writeString("notification")
+        .writeString(getNotification())
+        .writeString("params")
+        .toByteArray();
+    writer.reset();
+    for (Object param : getLeadingParams()) {
+      write(gson, writer, param);
+    }
+    leading = writer.toByteArray();
+    writer.reset();
+  }
+
+  private static void write(Gson gson, MessagePackWriter writer, Object value) {
+    if (value == null) {
+      writer.writeNil();
+    } else if (value instanceof Integer || value instanceof Long) {
+      writer.writeLong(((Number) value).longValue());
+    } else if (value instanceof Boolean) {
+      writer.writeBoolean((Boolean) value);
+    } else if (value instanceof Double) {
+      writer.writeDouble((Double) value);
+    } else if (value instanceof String) {
+      writer.writeString((String) value);
+    } else {
+      writer.write(gson.toJsonTree(value));
+    }
+  }
+
+  private static boolean isPrimitive(Object value) {
+    return (
+      value == null ||
+      value instanceof Integer ||
+      value instanceof Boolean ||
+      value instanceof Double ||
+      value instanceof Long ||
+      value instanceof String
+    );
+  }
+}
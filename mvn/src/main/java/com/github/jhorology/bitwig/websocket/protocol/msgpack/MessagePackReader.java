@@ -0,0 +1,601 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.websocket.protocol.msgpack;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A streaming reader that exposes a MessagePack message as JSON tokens.<br>
+ * This allows existing JSON-RPC decoder and Gson type adapters to read a
+ * MessagePack message without an intermediate tree.
+ * <ul>
+ *   <li>int, uint, float -&gt; NUMBER</li>
+ *   <li>str, bin -&gt; STRING (UTF-8)</li>
+ *   <li>nil -&gt; NULL, bool -&gt; BOOLEAN</li>
+ *   <li>array -&gt; BEGIN_ARRAY, map -&gt; BEGIN_OBJECT</li>
+ * </ul>
+ * Extension types are not supported.
+ */
+public class MessagePackReader extends JsonReader {
+
+  private final ByteBuffer buf;
+  // remaining items of open containers, map has 2 items per entry.
+  private int[] remaining = new int[16];
+  private boolean[] map = new boolean[16];
+  private int depth;
+  private JsonToken peeked;
+
+  /**
+   * Constructor.
+   * @param message the binary message.
+   */
+  public MessagePackReader(ByteBuffer message) {
+    super(new StringReader(""));
+    buf = message.slice();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public JsonToken peek() throws IOException {
+    if (peeked != null) {
+      return peeked;
+    }
+    if (depth == 0) {
+      peeked = buf.hasRemaining() ? tokenOf(head()) : JsonToken.END_DOCUMENT;
+    } else if (remaining[depth - 1] == 0) {
+      peeked = map[depth - 1] ? JsonToken.END_OBJECT : JsonToken.END_ARRAY;
+    } else if (map[depth - 1] && remaining[depth - 1] % 2 == 0) {
+      peeked = JsonToken.NAME;
+    } else {
+      peeked = tokenOf(head());
+    }
+    return peeked;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean hasNext() throws IOException {
+    JsonToken token = peek();
+    return (
+      token != JsonToken.END_OBJECT &&
+      token != JsonToken.END_ARRAY &&
+      token != JsonToken.END_DOCUMENT
+    );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void beginArray() throws IOException {
+    expect(JsonToken.BEGIN_ARRAY);
+    int b = consume();
+    int size;
+    if ((b & 0xf0) == 0x90) {
+      size = b & 0x0f;
+    } else if (b == 0xdc) {
+      size = readUint16();
+    } else {
+      size = toSize(readInt32());
+    }
+    push(size, false);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void endArray() throws IOException {
+    expect(JsonToken.END_ARRAY);
+    depth--;
+    peeked = null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void beginObject() throws IOException {
+    expect(JsonToken.BEGIN_OBJECT);
+    int b = consume();
+    int size;
+    if ((b & 0xf0) == 0x80) {
+      size = b & 0x0f;
+    } else if (b == 0xde) {
+      size = readUint16();
+    } else {
+      size = toSize(readInt32());
+    }
+    if (size > Integer.MAX_VALUE / 2) {
+      throw new MalformedJsonException("map is too large.");
+    }
+    push(size * 2, true);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void endObject() throws IOException {
+    expect(JsonToken.END_OBJECT);
+    depth--;
+    peeked = null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String nextName() throws IOException {
+    expect(JsonToken.NAME);
+    JsonToken token = tokenOf(head());
+    if (token != JsonToken.STRING && token != JsonToken.NUMBER) {
+      throw new IllegalStateException(
+        "Expected a name but was " + token + " at " + getPath()
+      );
+    }
+    return readScalar(consume());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String nextString() throws IOException {
+    JsonToken token = peek();
+    if (token != JsonToken.STRING && token != JsonToken.NUMBER) {
+      throw unexpected(JsonToken.STRING);
+    }
+    return readScalar(consume());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean nextBoolean() throws IOException {
+    expect(JsonToken.BOOLEAN);
+    return consume() == 0xc3;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void nextNull() throws IOException {
+    expect(JsonToken.NULL);
+    consume();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public double nextDouble() throws IOException {
+    JsonToken token = peek();
+    if (token == JsonToken.STRING) {
+      // same as JsonReader
+      return Double.parseDouble(nextString());
+    }
+    if (token != JsonToken.NUMBER) {
+      throw unexpected(JsonToken.NUMBER);
+    }
+    int b = consume();
+    switch (b) {
+      case 0xca:
+        require(4);
+        return buf.getFloat();
+      case 0xcb:
+        require(8);
+        return buf.getDouble();
+      case 0xcf:
+        return Double.parseDouble(Long.toUnsignedString(readInt64()));
+      default:
+        return readInteger(b);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long nextLong() throws IOException {
+    JsonToken token = peek();
+    if (token == JsonToken.STRING) {
+      // same as JsonReader
+      return Long.parseLong(nextString());
+    }
+    if (token != JsonToken.NUMBER) {
+      throw unexpected(JsonToken.NUMBER);
+    }
+    int b = head();
+    if (b == 0xca || b == 0xcb) {
+      double value = nextDouble();
+      long result = (long) value;
+      if (result != value) {
+        throw new NumberFormatException(
+          "Expected a long but was " + value + " at " + getPath()
+        );
+      }
+      return result;
+    }
+    consume();
+    long value = readInteger(b);
+    if (b == 0xcf && value < 0) {
+      throw new NumberFormatException(
+        "Expected a long but was " + Long.toUnsignedString(value)
+      );
+    }
+    return value;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int nextInt() throws IOException {
+    long value = nextLong();
+    int result = (int) value;
+    if (result != value) {
+      throw new NumberFormatException(
+        "Expected an int but was " + value + " at " + getPath()
+      );
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void skipValue() throws IOException {
+    JsonToken token = peek();
+    if (
+      token == JsonToken.END_ARRAY ||
+      token == JsonToken.END_OBJECT ||
+      token == JsonToken.END_DOCUMENT
+    ) {
+      throw new IllegalStateException(
+        "Expected a value but was " + token + " at " + getPath()
+      );
+    }
+    // a name is skipped same as other values.
+    skip(1);
+    if (depth > 0) {
+      remaining[depth - 1]--;
+    }
+    peeked = null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() throws IOException {
+    peeked = null;
+    depth = 0;
+    buf.position(buf.limit());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getPath() {
+    return "$@" + buf.position();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + " at " + getPath();
+  }
+
+  private JsonToken tokenOf(int b) throws IOException {
+    if (b <= 0x7f || b >= 0xe0) {
+      return JsonToken.NUMBER;
+    }
+    if (b <= 0x8f) {
+      return JsonToken.BEGIN_OBJECT;
+    }
+    if (b <= 0x9f) {
+      return JsonToken.BEGIN_ARRAY;
+    }
+    if (b <= 0xbf) {
+      return JsonToken.STRING;
+    }
+    switch (b) {
+      case 0xc0:
+        return JsonToken.NULL;
+      case 0xc2:
+      case 0xc3:
+        return JsonToken.BOOLEAN;
+      case 0xc4:
+      case 0xc5:
+      case 0xc6:
+      case 0xd9:
+      case 0xda:
+      case 0xdb:
+        return JsonToken.STRING;
+      case 0xca:
+      case 0xcb:
+      case 0xcc:
+      case 0xcd:
+      case 0xce:
+      case 0xcf:
+      case 0xd0:
+      case 0xd1:
+      case 0xd2:
+      case 0xd3:
+        return JsonToken.NUMBER;
+      case 0xdc:
+      case 0xdd:
+        return JsonToken.BEGIN_ARRAY;
+      case 0xde:
+      case 0xdf:
+        return JsonToken.BEGIN_OBJECT;
+      default:
+        throw new MalformedJsonException(
+          String.format("unsupported format 0x%02x at %s", b, getPath())
+        );
+    }
+  }
+
+  private String readScalar(int b) throws IOException {
+    switch (b) {
+      case 0xca:
+        require(4);
+        return Float.toString(buf.getFloat());
+      case 0xcb:
+        require(8);
+        return Double.toString(buf.getDouble());
+      case 0xcf:
+        return Long.toUnsignedString(readInt64());
+      case 0xc4:
+      case 0xd9:
+        return readUtf8(readUint8());
+      case 0xc5:
+      case 0xda:
+        return readUtf8(readUint16());
+      case 0xc6:
+      case 0xdb:
+        return readUtf8(toSize(readInt32()));
+      default:
+        if (b >= 0xa0 && b <= 0xbf) {
+          return readUtf8(b & 0x1f);
+        }
+        return Long.toString(readInteger(b));
+    }
+  }
+
+  private long readInteger(int b) throws IOException {
+    if (b <= 0x7f) {
+      return b;
+    }
+    if (b >= 0xe0) {
+      return (byte) b;
+    }
+    switch (b) {
+      case 0xcc:
+        return readUint8();
+      case 0xcd:
+        return readUint16();
+      case 0xce:
+        return readInt32() & 0xffffffffL;
+      case 0xcf:
+        return readInt64();
+      case 0xd0:
+        require(1);
+        return buf.get();
+      case 0xd1:
+        require(2);
+        return buf.getShort();
+      case 0xd2:
+        return readInt32();
+      case 0xd3:
+        return readInt64();
+      default:
+        throw new IllegalStateException(
+          String.format("Expected a number but was 0x%02x", b)
+        );
+    }
+  }
+
+  private String readUtf8(int length) throws IOException {
+    require(length);
+    String value;
+    if (buf.hasArray()) {
+      value =
+        new String(
+          buf.array(),
+          buf.arrayOffset() + buf.position(),
+          length,
+          StandardCharsets.UTF_8
+        );
+      buf.position(buf.position() + length);
+    } else {
+      byte[] bytes = new byte[length];
+      buf.get(bytes);
+      value = new String(bytes, StandardCharsets.UTF_8);
+    }
+    return value;
+  }
+
+  // skip specified number of objects.
+  private void skip(long count) throws IOException {
+    while (count > 0) {
+      count--;
+      int b = readUint8();
+      if (b <= 0x7f || b >= 0xe0 || (b >= 0xc0 && b <= 0xc3)) {
+        continue;
+      }
+      if (b <= 0x8f) {
+        count += (b & 0x0f) * 2L;
+      } else if (b <= 0x9f) {
+        count += b & 0x0f;
+      } else if (b <= 0xbf) {
+        skipBytes(b & 0x1f);
+      } else {
+        switch (b) {
+          case 0xc4:
+          case 0xd9:
+            skipBytes(readUint8());
+            break;
+          case 0xc5:
+          case 0xda:
+            skipBytes(readUint16());
+            break;
+          case 0xc6:
+          case 0xdb:
+            skipBytes(toSize(readInt32()));
+            break;
+          case 0xcc:
+          case 0xd0:
+            skipBytes(1);
+            break;
+          case 0xcd:
+          case 0xd1:
+            skipBytes(2);
+            break;
+          case 0xca:
+          case 0xce:
+          case 0xd2:
+            skipBytes(4);
+            break;
+          case 0xcb:
+          case 0xcf:
+          case 0xd3:
+            skipBytes(8);
+            break;
+          case 0xdc:
+            count += readUint16();
+            break;
+          case 0xdd:
+            count += readInt32() & 0xffffffffL;
+            break;
+          case 0xde:
+            count += readUint16() * 2L;
+            break;
+          case 0xdf:
+            count += (readInt32() & 0xffffffffL) * 2;
+            break;
+          default:
+            throw new MalformedJsonException(
+              String.format("unsupported format 0x%02x at %s", b, getPath())
+            );
+        }
+      }
+    }
+  }
+
+  private void skipBytes(int length) throws IOException {
+    require(length);
+    buf.position(buf.position() + length);
+  }
+
+  private void expect(JsonToken expected) throws IOException {
+    if (peek() != expected) {
+      throw unexpected(expected);
+    }
+  }
+
+  private IllegalStateException unexpected(JsonToken expected)
+    throws IOException {
+    return new IllegalStateException(
+      "Expected " + expected + " but was " + peek() + " at " + getPath()
+    );
+  }
+
+  // peek a format byte.
+  private int head() throws IOException {
+    require(1);
+    return buf.get(buf.position()) & 0xff;
+  }
+
+  // consume a format byte of value.
+  private int consume() throws IOException {
+    int b = readUint8();
+    if (depth > 0) {
+      remaining[depth - 1]--;
+    }
+    peeked = null;
+    return b;
+  }
+
+  private void push(int size, boolean isMap) {
+    if (depth == remaining.length) {
+      remaining = Arrays.copyOf(remaining, depth * 2);
+      map = Arrays.copyOf(map, depth * 2);
+    }
+    remaining[depth] = size;
+    map[depth] = isMap;
+    depth++;
+  }
+
+  private int readUint8() throws IOException {
+    require(1);
+    return buf.get() & 0xff;
+  }
+
+  private int readUint16() throws IOException {
+    require(2);
+    return buf.getShort() & 0xffff;
+  }
+
+  private int readInt32() throws IOException {
+    require(4);
+    return buf.getInt();
+  }
+
+  private long readInt64() throws IOException {
+    require(8);
+    return buf.getLong();
+  }
+
+  private int toSize(int uint32) throws IOException {
+    if (uint32 < 0) {
+      throw new MalformedJsonException("length is too large at " + getPath());
+    }
+    return uint32;
+  }
+
+  private void require(int length) throws IOException {
+    if (buf.remaining() < length) {
+      throw new EOFException("End of input at " + getPath());
+    }
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.websocket.protocol.msgpack;
+
+import com.github.jhorology.bitwig.websocket.protocol.NotificationTemplate;
+import com.github.jhorology.bitwig.websocket.protocol.jsonrpc.JsonRpcProtocolHandler;
+import com.github.jhorology.bitwig.websocket.protocol.jsonrpc.RequestDecoder;
+import com.google.gson.Gson;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.java_websocket.WebSocket;
+
+/**
+ * JSON-RPC 2.0 over MessagePack.<br>
+ * Request, response and notification have same structure as JSON-RPC 2.0,
+ * but they are encoded in MessagePack and sent as binary messages.
+ * A text message is still accepted as a JSON request, but the response is
+ * always sent as a binary message.
+ */
+public class MessagePackRpcProtocolHandler extends JsonRpcProtocolHandler {
+
+  // all messages are handled in "Control Surface Session" thread.
+  private final MessagePackWriter writer = new MessagePackWriter();
+  // only used in encoder thread.
+  private final MessagePackWriter encoderWriter = new MessagePackWriter();
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onMessage(WebSocket conn, ByteBuffer message) {
+    if (getGson() == null) {
+      return;
+    }
+    onRequest(conn, new MessagePackReader(message));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object decode(WebSocket conn, ByteBuffer message) {
+    RequestDecoder decoder = getDecoder();
+    return decoder != null
+      ? decodeRequest(decoder, new MessagePackReader(message))
+      : null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isDiscardable(ByteBuffer message) {
+    return isDiscardable(new MessagePackReader(message));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void reject(WebSocket conn, ByteBuffer message) {
+    reject(conn, new MessagePackReader(message));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public NotificationTemplate newNotificationTemplate(
+    String notification,
+    Object[] leadingParams
+  ) {
+    return new MessagePackNotificationTemplate(notification, leadingParams);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected Object encodeNotification(
+    NotificationTemplate template,
+    Object[] params
+  ) {
+    return encode(template, params);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected Object joinNotifications(List<Object> messages) {
+    MessagePackWriter writer = writer();
+    writer.reset().writeArrayHeader(messages.size());
+    for (Object message : messages) {
+      if (!(message instanceof ByteBuffer)) {
+        return null;
+      }
+      ByteBuffer buf = ((ByteBuffer) message).duplicate();
+      byte[] bytes = new byte[buf.remaining()];
+      buf.get(bytes);
+      writer.writeRaw(bytes);
+    }
+    return writer.toByteBuffer();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void sendObject(Object src, WebSocket conn) {
+    Gson gson = getGson();
+    MessagePackWriter writer = writer();
+    Object snapshot = snapshot(src);
+    flushPending(conn);
+    serialize(conn, () -> send(encode(gson, writer, snapshot), conn));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void pushObject(Object src, Collection<WebSocket> clients) {
+    Gson gson = getGson();
+    MessagePackWriter writer = writer();
+    Object snapshot = snapshot(src);
+    // subscribers may be changed before serialized.
+    Collection<WebSocket> targets = isAsyncSerialization()
+      ? new ArrayList<>(clients)
+      : clients;
+    flushPending(clients);
+    serialize(
+      targets,
+      () -> push(encode(gson, writer, snapshot), null, targets)
+    );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void broadcastObject(Object src) {
+    Gson gson = getGson();
+    MessagePackWriter writer = writer();
+    Object snapshot = snapshot(src);
+    flushPending();
+    serialize(() -> broadcast(encode(gson, writer, snapshot)));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void sendRejected(Gson gson, Object src, WebSocket conn) {
+    // shared writer is not available outside of session thread.
+    send(
+      new MessagePackWriter().write(gson.toJsonTree(src)).toByteBuffer(),
+      conn
+    );
+  }
+
+  private MessagePackWriter writer() {
+    return isAsyncSerialization() ? encoderWriter : writer;
+  }
+
+  private static ByteBuffer encode(
+    Gson gson,
+    MessagePackWriter writer,
+    Object src
+  ) {
+    return writer.reset().write(gson.toJsonTree(src)).toByteBuffer();
+  }
+
+  private ByteBuffer encode(NotificationTemplate template, Object[] params) {
+    Gson gson = getGson();
+    MessagePackWriter writer = writer();
+    if (template instanceof MessagePackNotificationTemplate) {
+      return (
+        (MessagePackNotificationTemplate) template
+      ).encode(gson, writer, params);
+    }
+    return writer
+      .reset()
+      .write(gson.toJsonTree(template.newNotification(params)))
+      .toByteBuffer();
+  }
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2020 Masafumi Fujimaru
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.jhorology.bitwig.websocket.protocol.msgpack;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A growable buffer for writing MessagePack message.<br>
+ * This class is not thread-safe, reuse the instance by {@link #reset()}.
+ */
+public class MessagePackWriter {
+
+  private byte[] buf;
+  private int size;
+
+  /**
+   * Constructor.
+   */
+  public MessagePackWriter() {
+    this(256);
+  }
+
+  /**
+   * Constructor.
+   * @param initialCapacity
+   */
+  public MessagePackWriter(int initialCapacity) {
+    buf = new byte[initialCapacity];
+  }
+
+  /**
+   * Discard all written bytes.
+   * @return this
+   */
+  public MessagePackWriter reset() {
+    size = 0;
+    return this;
+  }
+
+  /**
+   * Returns a number of written bytes.
+   * @return
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns a copy of written bytes.
+   * @return
+   */
+  public byte[] toByteArray() {
+    return Arrays.copyOf(buf, size);
+  }
+
+  /**
+   * Returns a copy of written bytes as a buffer.
+   * @return
+   */
+  public ByteBuffer toByteBuffer() {
+    return ByteBuffer.wrap(toByteArray());
+  }
+
+  /**
+   * Write raw bytes that already encoded in MessagePack.
+   * @param bytes
+   * @return this
+   */
+  public MessagePackWriter writeRaw(byte[] bytes) {
+    ensure(bytes.length);
+    System.arraycopy(bytes, 0, buf, size, bytes.length);
+    size += bytes.length;
+    return this;
+  }
+
+  /**
+   * Write a nil.
+   * @return this
+   */
+  public MessagePackWriter writeNil() {
+    ensure(1);
+    buf[size++] = (byte) 0xc0;
+    return this;
+  }
+
+  /**
+   * Write a boolean.
+   * @param value
+   * @return this
+   */
+  public MessagePackWriter writeBoolean(boolean value) {
+    ensure(1);
+    buf[size++] = (byte) (value ? 0xc3 : 0xc2);
+    return this;
+  }
+
+  /**
+   * Write an integer in the smallest format.
+   * @param value
+   * @return this
+   */
+  public MessagePackWriter writeLong(long value) {
+    if (value >= 0) {
+      if (value <= 0x7f) {
+        ensure(1);
+        buf[size++] = (byte) value;
+      } else if (value <= 0xff) {
+        ensure(2);
+        buf[size++] = (byte) 0xcc;
+        buf[size++] = (byte) value;
+      } else if (value <= 0xffff) {
+        ensure(3);
+        buf[size++] = (byte) 0xcd;
+        putShort((int) value);
+      } else if (value <= 0xffffffffL) {
+        ensure(5);
+        buf[size++] = (byte) 0xce;
+        putInt((int) value);
+      } else {
+        ensure(9);
+        buf[size++] = (byte) 0xcf;
+        putLong(value);
+      }
+    } else {
+      if (value >= -32) {
+        ensure(1);
+        buf[size++] = (byte) value;
+      } else if (value >= Byte.MIN_VALUE) {
+        ensure(2);
+        buf[size++] = (byte) 0xd0;
+        buf[size++] = (byte) value;
+      } else if (value >= Short.MIN_VALUE) {
+        ensure(3);
+        buf[size++] = (byte) 0xd1;
+        putShort((int) value);
+      } else if (value >= Integer.MIN_VALUE) {
+        ensure(5);
+        buf[size++] = (byte) 0xd2;
+        putInt((int) value);
+      } else {
+        ensure(9);
+        buf[size++] = (byte) 0xd3;
+        putLong(value);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Write a float64.
+   * @param value
+   * @return this
+   */
+  public MessagePackWriter writeDouble(double value) {
+    ensure(9);
+    buf[size++] = (byte) 0xcb;
+    putLong(Double.doubleToLongBits(value));
+    return this;
+  }
+
+  /**
+   * Write a UTF-8 string.
+   * @param value
+   * @return this
+   */
+  public MessagePackWriter writeString(String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    int length = bytes.length;
+    if (length <= 31) {
+      ensure(1 + length);
+      buf[size++] = (byte) (0xa0 | length);
+    } else if (length <= 0xff) {
+      ensure(2 + length);
+      buf[size++] = (byte) 0xd9;
+      buf[size++] = (byte) length;
+    } else if (length <= 0xffff) {
+      ensure(3 + length);
+      buf[size++] = (byte) 0xda;
+      putShort(length);
+    } else {
+      ensure(5 + length);
+      buf[size++] = (byte) 0xdb;
+      putInt(length);
+    }
+    System.arraycopy(bytes, 0, buf, size, length);
+    size += length;
+    return this;
+  }
+
+  /**
+   * Write an array header, followed by specified number of elements.
+   * @param length
+   * @return this
+   */
+  public MessagePackWriter writeArrayHeader(int length) {
+    if (length <= 15) {
+      ensure(1);
+      buf[size++] = (byte) (0x90 | length);
+    } else if (length <= 0xffff) {
+      ensure(3);
+      buf[size++] = (byte) 0xdc;
+      putShort(length);
+    } else {
+      ensure(5);
+      buf[size++] = (byte) 0xdd;
+      putInt(length);
+    }
+    return this;
+  }
+
+  /**
+   * Write a map header, followed by specified number of key value pairs.
+   * @param length
+   * @return this
+   */
+  public MessagePackWriter writeMapHeader(int length) {
+    if (length <= 15) {
+      ensure(1);
+      buf[size++] = (byte) (0x80 | length);
+    } else if (length <= 0xffff) {
+      ensure(3);
+      buf[size++] = (byte) 0xde;
+      putShort(length);
+    } else {
+      ensure(5);
+      buf[size++] = (byte) 0xdf;
+      putInt(length);
+    }
+    return this;
+  }
+
+  /**
+   * Write a JSON tree.
+   * @param json
+   * @return this
+   */
+  public MessagePackWriter write(JsonElement json) {
+    if (json == null || json.isJsonNull()) {
+      writeNil();
+    } else if (json.isJsonPrimitive()) {
+      writePrimitive(json.getAsJsonPrimitive());
+    } else if (json.isJsonArray()) {
+      JsonArray array = json.getAsJsonArray();
+      writeArrayHeader(array.size());
+      for (JsonElement e : array) {
+        write(e);
+      }
+    } else {
+      JsonObject object = json.getAsJsonObject();
+      writeMapHeader(object.size());
+      for (Map.Entry<String, JsonElement> e : object.entrySet()) {
+        writeString(e.getKey());
+        write(e.getValue());
+      }
+    }
+    return this;
+  }
+
+  private void writePrimitive(JsonPrimitive json) {
+    if (json.isBoolean()) {
+      writeBoolean(json.getAsBoolean());
+    } else if (json.isString()) {
+      writeString(json.getAsString());
+    } else {
+      writeNumber(json.getAsNumber());
+    }
+  }
+
+  private void writeNumber(Number value) {
+    if (
+      value instanceof Integer ||
+      value instanceof Long ||
+      value instanceof Short ||
+      value instanceof Byte
+    ) {
+      writeLong(value.longValue());
+    } else if (value instanceof Double || value instanceof Float) {
+      writeDouble(value.doubleValue());
+    } else {
+      // BigInteger, BigDecimal or LazilyParsedNumber
+      BigDecimal decimal = new BigDecimal(value.toString());
+      try {
+        BigInteger integer = decimal.toBigIntegerExact();
+        if (integer.bitLength() < 64) {
+          writeLong(integer.longValue());
+          return;
+        }
+      } catch (ArithmeticException ex) {
+        // has fractional part
+      }
+      writeDouble(decimal.doubleValue());
+    }
+  }
+
+  private void putShort(int value) {
+    buf[size++] = (byte) (value >> 8);
+    buf[size++] = (byte) value;
+  }
+
+  private void putInt(int value) {
+    buf[size++] = (byte) (value >> 24);
+    buf[size++] = (byte) (value >> 16);
+    buf[size++] = (byte) (value >> 8);
+    buf[size++] = (byte) value;
+  }
+
+  private void putLong(long value) {
+    putInt((int) (value >> 32));
+    putInt((int) value);
+  }
+
+  private void ensure(int length) {
+    if (size + length > buf.length) {
+      buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + length));
+    }
+  }
+}